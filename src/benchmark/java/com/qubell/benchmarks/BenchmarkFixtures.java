@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks;
+
+import com.qubell.jenkinsci.plugins.qubell.Configuration;
+import com.qubell.services.ws.InstanceStatusResponse;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Realistic payloads shared by benchmarks
+ *
+ * @author Alex Krupnov
+ */
+public final class BenchmarkFixtures {
+    private static final String INSTANCE_STATUS_RESOURCE = "instance-status.json";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * @return instance status response as returned by Qubell API for a running launch workflow
+     * @throws IOException when fixture can not be read
+     */
+    public static String instanceStatusJson() throws IOException {
+        InputStream stream = BenchmarkFixtures.class.getResourceAsStream(INSTANCE_STATUS_RESOURCE);
+        try {
+            return IOUtils.toString(stream, "UTF-8");
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * @return parsed instance status response, the same way CXF provider builds it
+     * @throws IOException when fixture can not be read
+     */
+    public static InstanceStatusResponse instanceStatusResponse() throws IOException {
+        return new ObjectMapper().readValue(instanceStatusJson(), InstanceStatusResponse.class);
+    }
+
+    /**
+     * @return return values of the fixture instance, nested maps and lists included
+     * @throws IOException when fixture can not be read
+     */
+    public static Map<String, Object> returnValues() throws IOException {
+        return instanceStatusResponse().getReturnValues();
+    }
+
+    /**
+     * @return configuration of a fake account, it is never contacted by benchmarks
+     */
+    public static Configuration configuration() {
+        return new Configuration("https://express.qubell.com/", false, "benchmark@qubell.com", "secret", 5, false);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs all plugin benchmarks and writes JSON baseline report
+ * <p/>
+ * Usage: BenchmarkRunner [report path] [benchmark name regexp], by default all benchmarks are run
+ * and the report is written to target/jmh/baseline.json. Compare reports of two revisions to spot regressions.
+ *
+ * @author Alex Krupnov
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        File report = new File(args.length > 0 ? args[0] : "target/jmh/baseline.json");
+        String include = args.length > 1 ? args[1] : BenchmarkRunner.class.getPackage().getName() + ".*Benchmark.*";
+
+        File reportFolder = report.getParentFile();
+        if (reportFolder != null && !reportFolder.isDirectory() && !reportFolder.mkdirs()) {
+            throw new IllegalStateException("Unable to create report folder " + reportFolder);
+        }
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .forks(1)
+                .warmupIterations(5)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result(report.getPath())
+                .build();
+
+        new Runner(options).run();
+    }
+}
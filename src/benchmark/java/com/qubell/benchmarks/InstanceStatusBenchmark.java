@@ -0,0 +1,64 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks;
+
+import com.qubell.services.InstanceStatus;
+import com.qubell.services.toa.InstanceStatusTOA;
+import com.qubell.services.ws.InstanceStatusResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * Per-poll work on instance status: conversion from WS response and comparison with the previous attempt
+ *
+ * @author Alex Krupnov
+ */
+@State(Scope.Thread)
+public class InstanceStatusBenchmark {
+    private InstanceStatusResponse response;
+    private InstanceStatusTOA toa;
+    private InstanceStatus previous;
+    private InstanceStatus current;
+
+    @Setup
+    public void setUp() throws IOException {
+        response = BenchmarkFixtures.instanceStatusResponse();
+        toa = new InstanceStatusTOA();
+        // Two polls of unchanged instance produce equal, but not identical statuses
+        previous = toa.fromWsResponse(BenchmarkFixtures.instanceStatusResponse());
+        current = toa.fromWsResponse(BenchmarkFixtures.instanceStatusResponse());
+    }
+
+    @Benchmark
+    public InstanceStatus fromWsResponse() {
+        return toa.fromWsResponse(response);
+    }
+
+    @Benchmark
+    public boolean equalsPreviousAttempt() {
+        return current.equals(previous);
+    }
+
+    @Benchmark
+    public int hashCodeOfStatus() {
+        return current.hashCode();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks;
+
+import com.qubell.jenkinsci.plugins.qubell.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * {@link JsonParser} on return value maps, as dumped on every status change and saved to output files
+ *
+ * @author Alex Krupnov
+ */
+@State(Scope.Thread)
+public class JsonParserBenchmark {
+    private Map<String, Object> returnValues;
+    private String returnValuesJson;
+    private ByteArrayOutputStream buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        returnValues = BenchmarkFixtures.returnValues();
+        returnValuesJson = JsonParser.serialize(returnValues);
+        buffer = new ByteArrayOutputStream(returnValuesJson.length() * 2);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseMap() {
+        return JsonParser.parseMap(returnValuesJson);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return JsonParser.serialize(returnValues);
+    }
+
+    @Benchmark
+    public int serializeToStream() throws IOException {
+        buffer.reset();
+        JsonParser.serialize(returnValues, buffer);
+        return buffer.size();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks;
+
+import com.qubell.services.ws.LaunchInstanceRequestBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Request map construction for launch and command calls, see {@link com.qubell.services.ws.AbstractRequestBuilder}
+ *
+ * @author Alex Krupnov
+ */
+@State(Scope.Thread)
+public class RequestBuilderBenchmark {
+    private Map<String, Object> parameters;
+
+    @Setup
+    public void setUp() throws IOException {
+        parameters = BenchmarkFixtures.instanceStatusResponse().getParameters();
+    }
+
+    @Benchmark
+    public Map<String, Object> launchRequest() {
+        return new LaunchInstanceRequestBuilder()
+                .addEnvironmentId("51c9a4f7e4b0a0f3c1a0b2c7")
+                .addVersion(17)
+                .addInstanceName("petclinic-ci-1342")
+                .addParameters(parameters)
+                .getRequest();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks;
+
+import com.qubell.jenkinsci.plugins.qubell.Configuration;
+import com.qubell.services.ws.WebClientPool;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.codehaus.jackson.jaxrs.JacksonJsonProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CXF client construction per service call: pooled copy, as done by WebServiceBase, against a client built from scratch
+ *
+ * @author Alex Krupnov
+ */
+@State(Scope.Thread)
+public class WebClientBenchmark {
+    private Configuration configuration;
+
+    @Setup
+    public void setUp() {
+        configuration = BenchmarkFixtures.configuration();
+        WebClientPool.getInstance().acquire(configuration);
+    }
+
+    @Benchmark
+    public WebClient pooledClient() {
+        return WebClientPool.getInstance().acquire(configuration).path("instances").path("5211d2b7e4b0a0f3c1a1e7a2");
+    }
+
+    @Benchmark
+    public WebClient freshClient() {
+        List<Object> providers = new ArrayList<Object>();
+        providers.add(new JacksonJsonProvider());
+        return WebClient.create(configuration.getUrl() + "api/1/", providers).path("instances").path("5211d2b7e4b0a0f3c1a1e7a2");
+    }
+}
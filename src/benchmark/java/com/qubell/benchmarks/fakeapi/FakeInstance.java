@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks.fakeapi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instance state machine of {@link FakeQubellApi}
+ * <p/>
+ * Every workflow spends a short time in Requested, then executes its steps evenly for the duration given
+ * by {@link InstanceScenario} and ends up Running (or Destroyed for destroy workflow), unless it was picked to fail.
+ * State is computed from the clock on every read, so there are no background threads.
+ *
+ * @author Alex Krupnov
+ */
+public class FakeInstance {
+    static final String LAUNCH_WORKFLOW = "launch";
+    static final String DESTROY_WORKFLOW = "destroy";
+
+    private static final long REQUESTED_MILLIS = 200;
+
+    private final String id;
+    private final String name;
+    private final String applicationId;
+    private final String environmentId;
+    private final InstanceScenario scenario;
+    private final Map<String, Object> returnValues = new LinkedHashMap<String, Object>();
+
+    private int version = 1;
+    private String workflow;
+    private long workflowStartedAt;
+    private boolean workflowFails;
+    private boolean destroyed;
+
+    FakeInstance(String id, String name, String applicationId, String environmentId, InstanceScenario scenario, boolean fails) {
+        this.id = id;
+        this.name = name;
+        this.applicationId = applicationId;
+        this.environmentId = environmentId;
+        this.scenario = scenario;
+        start(LAUNCH_WORKFLOW, fails);
+    }
+
+    /**
+     * @return instance id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return id of launched application
+     */
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    /**
+     * Starts a workflow, unless another one is still executing
+     *
+     * @param command workflow name
+     * @param fails   whether workflow ends up failed
+     * @return false when instance is busy with another workflow
+     */
+    synchronized boolean runCommand(String command, boolean fails) {
+        if (destroyed || isExecuting(System.currentTimeMillis())) {
+            return false;
+        }
+        start(command, fails);
+        version++;
+        return true;
+    }
+
+    /**
+     * @return current instance status as Qubell API returns it
+     */
+    synchronized Map<String, Object> toResponse() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - workflowStartedAt;
+        long duration = scenario.getDuration(workflow);
+
+        String instanceStatus;
+        String workflowStatus;
+        int percentComplete;
+        if (elapsed < REQUESTED_MILLIS) {
+            instanceStatus = "Requested";
+            workflowStatus = "Requested";
+            percentComplete = 0;
+        } else if (isExecuting(now)) {
+            instanceStatus = DESTROY_WORKFLOW.equals(workflow) ? "Destroying" : "Executing";
+            workflowStatus = "Executing";
+            percentComplete = (int) ((elapsed - REQUESTED_MILLIS) * 100 / Math.max(duration, 1));
+        } else if (workflowFails) {
+            instanceStatus = "Failed";
+            workflowStatus = "Failed";
+            percentComplete = 100;
+        } else {
+            if (DESTROY_WORKFLOW.equals(workflow)) {
+                destroyed = true;
+            }
+            instanceStatus = destroyed ? "Destroyed" : "Running";
+            workflowStatus = "Succeeded";
+            percentComplete = 100;
+            returnValues.put("endpoints.app-url", "http://" + name + ".example.com:8080/");
+            returnValues.put("workflow.last", workflow);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<String, Object>();
+        response.put("id", id);
+        response.put("name", name);
+        response.put("version", String.valueOf(version));
+        response.put("status", instanceStatus);
+        response.put("applicationId", applicationId);
+        response.put("environmentId", environmentId);
+        response.put("ownerId", "fake-owner");
+        response.put("percentComplete", String.valueOf(percentComplete));
+        response.put("errorMessage", workflowFails && "Failed".equals(instanceStatus) ? "Step failed by scenario" : null);
+        response.put("parameters", new HashMap<String, Object>());
+        response.put("returnValues", new LinkedHashMap<String, Object>(returnValues));
+        response.put("workflow", describeWorkflow(workflowStatus, percentComplete));
+        return response;
+    }
+
+    private Map<String, Object> describeWorkflow(String workflowStatus, int percentComplete) {
+        int stepsCount = scenario.getSteps();
+        int stepShare = 100 / stepsCount;
+
+        List<Map<String, Object>> steps = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < stepsCount; i++) {
+            int stepStart = i * stepShare;
+            Map<String, Object> step = new LinkedHashMap<String, Object>();
+            step.put("name", workflow + "-step-" + (i + 1));
+            if (percentComplete >= stepStart + stepShare || "Succeeded".equals(workflowStatus)) {
+                step.put("status", "Succeeded");
+                step.put("percentComplete", 100);
+            } else if (percentComplete >= stepStart && "Executing".equals(workflowStatus)) {
+                step.put("status", "Executing");
+                step.put("percentComplete", (percentComplete - stepStart) * 100 / stepShare);
+            } else if ("Failed".equals(workflowStatus) && i == stepsCount - 1) {
+                step.put("status", "Failed");
+                step.put("percentComplete", 0);
+            } else {
+                step.put("status", "Requested");
+                step.put("percentComplete", 0);
+            }
+            steps.add(step);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("name", workflow);
+        result.put("status", workflowStatus);
+        result.put("ownerId", "fake-owner");
+        result.put("steps", steps);
+        return result;
+    }
+
+    private void start(String command, boolean fails) {
+        this.workflow = command;
+        this.workflowStartedAt = System.currentTimeMillis();
+        this.workflowFails = fails;
+    }
+
+    private boolean isExecuting(long now) {
+        return now - workflowStartedAt < REQUESTED_MILLIS + scenario.getDuration(workflow);
+    }
+}
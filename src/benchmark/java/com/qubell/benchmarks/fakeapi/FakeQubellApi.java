@@ -0,0 +1,345 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks.fakeapi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in of Qubell REST API, serving the calls made by plugin services under <tt>api/1/</tt>:
+ * <ul>
+ * <li>GET organizations, organizations/{id}/applications, organizations/{id}/environments, organizations/{id}/instances</li>
+ * <li>POST applications/{id}/launch, PUT applications/{id}/manifest</li>
+ * <li>GET instances/{id}, POST instances/{id}/{command}</li>
+ * </ul>
+ * Instances follow {@link FakeInstance} state machine, configured by {@link #getScenario()}.
+ * Latency and errors are injected by {@link #getFaults()}, every served request is counted by {@link #getCounters()}.
+ * Credentials are not checked.
+ *
+ * @author Alex Krupnov
+ */
+public class FakeQubellApi {
+    private static final String API_PREFIX = "/api/1/";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Random random = new Random();
+    private final AtomicInteger instanceSequence = new AtomicInteger();
+    private final ConcurrentMap<String, FakeInstance> instances = new ConcurrentHashMap<String, FakeInstance>();
+    private final ConcurrentMap<String, AtomicInteger> manifestVersions = new ConcurrentHashMap<String, AtomicInteger>();
+    private final Map<String, List<String>> applicationsByOrganization = new LinkedHashMap<String, List<String>>();
+    private final Map<String, List<String>> environmentsByOrganization = new LinkedHashMap<String, List<String>>();
+
+    private final InstanceScenario scenario = new InstanceScenario();
+    private final FaultInjector faults = new FaultInjector();
+    private final RequestCounters counters = new RequestCounters();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Inits API with given number of organizations, each having the given number of applications and one environment
+     *
+     * @param organizations               number of organizations
+     * @param applicationsPerOrganization number of applications in every organization
+     */
+    public FakeQubellApi(int organizations, int applicationsPerOrganization) {
+        for (int org = 1; org <= organizations; org++) {
+            String organizationId = "org-" + org;
+            List<String> applications = new ArrayList<String>();
+            for (int app = 1; app <= applicationsPerOrganization; app++) {
+                applications.add(organizationId + "-app-" + app);
+            }
+            applicationsByOrganization.put(organizationId, applications);
+            environmentsByOrganization.put(organizationId, Collections.singletonList(organizationId + "-env-default"));
+        }
+    }
+
+    /**
+     * Starts serving on a free local port
+     *
+     * @param threads number of request handling threads
+     * @throws IOException when server socket can not be opened
+     */
+    public synchronized void start(int threads) throws IOException {
+        executor = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(API_PREFIX, new ApiHandler());
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Stops serving, dropping in-flight requests
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * @return url to be used as Qubell url in plugin configuration
+     */
+    public synchronized String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @return ids of all applications, in organization order
+     */
+    public List<String> getApplicationIds() {
+        List<String> result = new ArrayList<String>();
+        for (List<String> applications : applicationsByOrganization.values()) {
+            result.addAll(applications);
+        }
+        return result;
+    }
+
+    /**
+     * @return scenario of instance workflows
+     */
+    public InstanceScenario getScenario() {
+        return scenario;
+    }
+
+    /**
+     * @return latency and error injection settings
+     */
+    public FaultInjector getFaults() {
+        return faults;
+    }
+
+    /**
+     * @return served requests counters
+     */
+    public RequestCounters getCounters() {
+        return counters;
+    }
+
+    /**
+     * @return number of instances launched so far
+     */
+    public int getInstancesCount() {
+        return instances.size();
+    }
+
+    private Response handle(String method, String[] path, HttpExchange exchange) throws IOException {
+        String resource = path[0];
+
+        if ("organizations".equals(resource) && "GET".equals(method)) {
+            if (path.length == 1) {
+                return listOrganizations();
+            }
+            if (path.length == 3 && "applications".equals(path[2])) {
+                return listNamed("GET organizations/{id}/applications", applicationsByOrganization.get(path[1]));
+            }
+            if (path.length == 3 && "environments".equals(path[2])) {
+                return listNamed("GET organizations/{id}/environments", environmentsByOrganization.get(path[1]));
+            }
+            if (path.length == 3 && "instances".equals(path[2])) {
+                return listInstances(path[1]);
+            }
+        }
+
+        if ("applications".equals(resource) && path.length == 3) {
+            if ("launch".equals(path[2]) && "POST".equals(method)) {
+                return launch(path[1], exchange);
+            }
+            if ("manifest".equals(path[2]) && "PUT".equals(method)) {
+                IOUtils.toByteArray(exchange.getRequestBody());
+                return updateManifest(path[1]);
+            }
+        }
+
+        if ("instances".equals(resource)) {
+            if (path.length == 2 && "GET".equals(method)) {
+                FakeInstance instance = instances.get(path[1]);
+                return instance != null
+                        ? new Response("GET instances/{id}", 200, instance.toResponse())
+                        : error("GET instances/{id}", 404, "Specified instance does not exist");
+            }
+            if (path.length == 3 && "POST".equals(method)) {
+                return runCommand(path[1], path[2]);
+            }
+        }
+
+        return error(method + " " + resource, 404, "Unknown resource");
+    }
+
+    private Response listOrganizations() {
+        List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+        for (String organizationId : applicationsByOrganization.keySet()) {
+            result.add(named(organizationId));
+        }
+        return new Response("GET organizations", 200, result);
+    }
+
+    private Response listInstances(String organizationId) {
+        String route = "GET organizations/{id}/instances";
+        List<String> applications = applicationsByOrganization.get(organizationId);
+        if (applications == null) {
+            return error(route, 404, "Specified organization does not exist");
+        }
+        List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+        for (FakeInstance instance : instances.values()) {
+            if (applications.contains(instance.getApplicationId())) {
+                result.add(instance.toResponse());
+            }
+        }
+        return new Response(route, 200, result);
+    }
+
+    private Response listNamed(String route, List<String> ids) {
+        if (ids == null) {
+            return error(route, 404, "Specified organization does not exist");
+        }
+        List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+        for (String id : ids) {
+            result.add(named(id));
+        }
+        return new Response(route, 200, result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Response launch(String applicationId, HttpExchange exchange) throws IOException {
+        String route = "POST applications/{id}/launch";
+        Map<String, Object> request = mapper.readValue(exchange.getRequestBody(), Map.class);
+
+        String id = "instance-" + instanceSequence.incrementAndGet();
+        Object name = request.get("instanceName");
+        Object environmentId = request.get("environmentId");
+        instances.put(id, new FakeInstance(id, name != null ? name.toString() : id, applicationId,
+                environmentId != null ? environmentId.toString() : null, scenario, shouldFail()));
+
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("id", id);
+        result.put("warnings", new ArrayList<String>());
+        result.put("errors", new ArrayList<String>());
+        return new Response(route, 200, result);
+    }
+
+    private Response updateManifest(String applicationId) {
+        AtomicInteger version = manifestVersions.get(applicationId);
+        if (version == null) {
+            AtomicInteger created = new AtomicInteger();
+            version = manifestVersions.putIfAbsent(applicationId, created);
+            if (version == null) {
+                version = created;
+            }
+        }
+        return new Response("PUT applications/{id}/manifest", 200, Collections.singletonMap("version", version.incrementAndGet()));
+    }
+
+    private Response runCommand(String instanceId, String command) {
+        String route = "POST instances/{id}/{command}";
+        FakeInstance instance = instances.get(instanceId);
+        if (instance == null) {
+            return error(route, 404, "Specified instance does not exist");
+        }
+        if (!instance.runCommand(command, shouldFail())) {
+            return error(route, 409, "Not allowed to run workflow currently since another workflow is already running");
+        }
+        return new Response(route, 200, Collections.singletonMap("id", instanceId));
+    }
+
+    private boolean shouldFail() {
+        synchronized (random) {
+            return random.nextDouble() < scenario.getFailureRate();
+        }
+    }
+
+    private Map<String, Object> named(String id) {
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("id", id);
+        result.put("name", id.replace('-', ' '));
+        return result;
+    }
+
+    private Response error(String route, int status, String message) {
+        return new Response(route, status, Collections.singletonMap("error", message));
+    }
+
+    /**
+     * Route, status and body of a response
+     */
+    private static class Response {
+        private final String route;
+        private final int status;
+        private final Object body;
+
+        private Response(String route, int status, Object body) {
+            this.route = route;
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private class ApiHandler implements HttpHandler {
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String method = exchange.getRequestMethod();
+                String[] path = exchange.getRequestURI().getPath().substring(API_PREFIX.length()).split("/");
+
+                faults.delay();
+
+                Response response;
+                int injected = faults.pickFailure(path.length == 3 && "instances".equals(path[0]) && "POST".equals(method));
+                if (injected != 0) {
+                    response = error(method + " injected", injected, "Injected failure");
+                } else {
+                    response = FakeQubellApi.this.handle(method, path, exchange);
+                }
+
+                counters.record(response.route, response.status);
+
+                byte[] body = mapper.writeValueAsBytes(response.body);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(response.status, body.length);
+                OutputStream stream = exchange.getResponseBody();
+                try {
+                    stream.write(body);
+                } finally {
+                    stream.close();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks.fakeapi;
+
+import java.util.Random;
+
+/**
+ * Programmable latency and error injection of {@link FakeQubellApi}
+ * <p/>
+ * Rates are probabilities from 0 to 1, checked on every request. All settings may be changed while the server is running.
+ *
+ * @author Alex Krupnov
+ */
+public class FaultInjector {
+    private final Random random = new Random();
+
+    private volatile long minLatencyMillis;
+    private volatile long maxLatencyMillis;
+    private volatile double serverErrorRate;
+    private volatile double requestTimeoutRate;
+    private volatile double busyRate;
+
+    /**
+     * Sets latency added to every response, uniformly distributed between min and max
+     *
+     * @param minMillis minimal latency
+     * @param maxMillis maximal latency
+     * @return the injector itself
+     */
+    public FaultInjector latency(long minMillis, long maxMillis) {
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = Math.max(minMillis, maxMillis);
+        return this;
+    }
+
+    /**
+     * @param rate share of requests answered with 503 Service Unavailable
+     * @return the injector itself
+     */
+    public FaultInjector serverErrors(double rate) {
+        this.serverErrorRate = rate;
+        return this;
+    }
+
+    /**
+     * @param rate share of requests answered with 408 Request Timeout
+     * @return the injector itself
+     */
+    public FaultInjector requestTimeouts(double rate) {
+        this.requestTimeoutRate = rate;
+        return this;
+    }
+
+    /**
+     * @param rate share of command requests answered with 409 Conflict, even if instance is idle
+     * @return the injector itself
+     */
+    public FaultInjector busyInstances(double rate) {
+        this.busyRate = rate;
+        return this;
+    }
+
+    /**
+     * Sleeps for injected latency
+     *
+     * @throws InterruptedException when interrupted
+     */
+    void delay() throws InterruptedException {
+        long latency = minLatencyMillis;
+        if (maxLatencyMillis > minLatencyMillis) {
+            latency += (long) (nextDouble() * (maxLatencyMillis - minLatencyMillis));
+        }
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+    }
+
+    /**
+     * Picks injected failure for a request
+     *
+     * @param command whether request runs a command, only those can be answered with 409
+     * @return status code to answer with, or 0 when request should be served normally
+     */
+    int pickFailure(boolean command) {
+        double dice = nextDouble();
+        if (dice < serverErrorRate) {
+            return 503;
+        }
+        dice -= serverErrorRate;
+        if (dice < requestTimeoutRate) {
+            return 408;
+        }
+        dice -= requestTimeoutRate;
+        if (command && dice < busyRate) {
+            return 409;
+        }
+        return 0;
+    }
+
+    private double nextDouble() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+}
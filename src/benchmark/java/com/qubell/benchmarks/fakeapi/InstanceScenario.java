@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks.fakeapi;
+
+/**
+ * Durations and outcomes of workflows run by {@link FakeInstance}
+ *
+ * @author Alex Krupnov
+ */
+public class InstanceScenario {
+    private long launchMillis = 5000;
+    private long commandMillis = 2000;
+    private long destroyMillis = 2000;
+    private int steps = 4;
+    private double failureRate;
+
+    /**
+     * @param millis time launch workflow spends executing
+     * @return the scenario itself
+     */
+    public InstanceScenario launch(long millis) {
+        this.launchMillis = millis;
+        return this;
+    }
+
+    /**
+     * @param millis time custom command workflow spends executing
+     * @return the scenario itself
+     */
+    public InstanceScenario command(long millis) {
+        this.commandMillis = millis;
+        return this;
+    }
+
+    /**
+     * @param millis time destroy workflow spends executing
+     * @return the scenario itself
+     */
+    public InstanceScenario destroy(long millis) {
+        this.destroyMillis = millis;
+        return this;
+    }
+
+    /**
+     * @param steps number of steps every workflow consists of
+     * @return the scenario itself
+     */
+    public InstanceScenario steps(int steps) {
+        this.steps = Math.max(1, steps);
+        return this;
+    }
+
+    /**
+     * @param rate share of workflows ending with Failed status
+     * @return the scenario itself
+     */
+    public InstanceScenario failures(double rate) {
+        this.failureRate = rate;
+        return this;
+    }
+
+    /**
+     * @param workflow workflow name, "launch", "destroy" or a custom command
+     * @return execution time of the workflow
+     */
+    public long getDuration(String workflow) {
+        if (FakeInstance.LAUNCH_WORKFLOW.equals(workflow)) {
+            return launchMillis;
+        }
+        if (FakeInstance.DESTROY_WORKFLOW.equals(workflow)) {
+            return destroyMillis;
+        }
+        return commandMillis;
+    }
+
+    /**
+     * @return number of steps in every workflow
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return share of workflows ending with Failed status
+     */
+    public double getFailureRate() {
+        return failureRate;
+    }
+}
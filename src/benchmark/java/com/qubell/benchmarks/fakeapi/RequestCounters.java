@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks.fakeapi;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts requests served by {@link FakeQubellApi}, by route and by response status
+ *
+ * @author Alex Krupnov
+ */
+public class RequestCounters {
+    private final ConcurrentMap<String, AtomicLong> byRoute = new ConcurrentHashMap<String, AtomicLong>();
+    private final ConcurrentMap<Integer, AtomicLong> byStatus = new ConcurrentHashMap<Integer, AtomicLong>();
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * Records served request
+     *
+     * @param route  route template, such as "GET instances/{id}"
+     * @param status response status code
+     */
+    public void record(String route, int status) {
+        total.incrementAndGet();
+        increment(byRoute, route);
+        increment(byStatus, status);
+    }
+
+    /**
+     * @return total number of requests
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * @param route route template
+     * @return number of requests to the route
+     */
+    public long getCount(String route) {
+        AtomicLong counter = byRoute.get(route);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * @return snapshot of request counts by route template, sorted by route
+     */
+    public Map<String, Long> getByRoute() {
+        return snapshot(byRoute);
+    }
+
+    /**
+     * @return snapshot of request counts by response status, sorted by status
+     */
+    public Map<Integer, Long> getByStatus() {
+        return snapshot(byStatus);
+    }
+
+    /**
+     * Resets all counters
+     */
+    public void reset() {
+        byRoute.clear();
+        byStatus.clear();
+        total.set(0);
+    }
+
+    private static <K> void increment(ConcurrentMap<K, AtomicLong> counters, K key) {
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(key, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    private static <K> Map<K, Long> snapshot(ConcurrentMap<K, AtomicLong> counters) {
+        Map<K, Long> result = new TreeMap<K, Long>();
+        for (Map.Entry<K, AtomicLong> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects latencies of one kind of wait and reports percentiles
+ *
+ * @author Alex Krupnov
+ */
+public class LatencyRecorder {
+    private final List<Long> latencies = new ArrayList<Long>();
+
+    /**
+     * @param millis observed latency
+     */
+    public synchronized void record(long millis) {
+        latencies.add(millis);
+    }
+
+    /**
+     * @return number of recorded latencies
+     */
+    public synchronized int getCount() {
+        return latencies.size();
+    }
+
+    /**
+     * @param percentile percentile from 0 to 100
+     * @return latency at given percentile, 0 when nothing was recorded
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (latencies.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<Long>(latencies);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.size()) - 1;
+        return sorted.get(Math.min(Math.max(index, 0), sorted.size() - 1));
+    }
+
+    /**
+     * @return one line summary of percentiles
+     */
+    public String describe() {
+        return String.format("count=%d p50=%dms p95=%dms p99=%dms max=%dms",
+                getCount(), getPercentile(50), getPercentile(95), getPercentile(99), getPercentile(100));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks.load;
+
+import com.qubell.benchmarks.fakeapi.FakeQubellApi;
+import com.qubell.jenkinsci.plugins.qubell.Configuration;
+import com.qubell.services.QubellFacade;
+import com.qubell.services.QubellFacadeImpl;
+import com.qubell.services.ws.RetryBudget;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs hundreds of {@link SimulatedBuild}s against {@link FakeQubellApi} and reports API calls per build,
+ * status wait latencies and threads used
+ * <p/>
+ * Usage: LoadDriver [--name=value ...], see {@link LoadSettings} for settings, for instance
+ * <pre>
+ *     --builds=500 --executors=100 --adaptive=true --serverErrors=0.01 --report=target/load/report.txt
+ * </pre>
+ *
+ * @author Alex Krupnov
+ */
+public class LoadDriver {
+    private static final String PLUGIN_THREAD_PREFIX = "Qubell";
+    private static final long THREAD_SAMPLING_MILLIS = 100;
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        final LoadSettings settings = new LoadSettings(args);
+
+        FakeQubellApi api = new FakeQubellApi(4, 25);
+        api.getScenario()
+                .launch(settings.getLaunchMillis())
+                .command(settings.getCommandMillis())
+                .failures(settings.getWorkflowFailureRate());
+        api.getFaults()
+                .latency(settings.getMinLatencyMillis(), settings.getMaxLatencyMillis())
+                .serverErrors(settings.getServerErrorRate())
+                .requestTimeouts(settings.getRequestTimeoutRate())
+                .busyInstances(settings.getBusyRate());
+        api.start(settings.getServerThreads());
+
+        final LoadReport report = new LoadReport();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                sampleThreads(report);
+            }
+        }, 0, THREAD_SAMPLING_MILLIS, TimeUnit.MILLISECONDS);
+
+        try {
+            Configuration configuration = new Configuration(api.getUrl(), false, "load@qubell.com", "secret",
+                    (int) TimeUnit.MILLISECONDS.toSeconds(settings.getPollingMillis()), false);
+            List<String> applications = api.getApplicationIds();
+
+            ExecutorService executors = Executors.newFixedThreadPool(settings.getExecutors());
+            long startedAt = System.currentTimeMillis();
+
+            List<Future<Boolean>> builds = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < settings.getBuilds(); i++) {
+                // Every build has own retry budget, as in Jenkins
+                QubellFacade facade = new QubellFacadeImpl(configuration, new RetryBudget(configuration.getBuildRetryBudget()));
+                builds.add(executors.submit(new SimulatedBuild(i + 1, applications.get(i % applications.size()),
+                        facade, settings, report)));
+            }
+            for (Future<Boolean> build : builds) {
+                report.recordBuild(build.get());
+            }
+
+            long elapsed = System.currentTimeMillis() - startedAt;
+            executors.shutdown();
+
+            report.print(System.out, settings, api.getCounters(), elapsed);
+            if (settings.getReportPath() != null) {
+                File reportFile = new File(settings.getReportPath());
+                if (reportFile.getParentFile() != null) {
+                    reportFile.getParentFile().mkdirs();
+                }
+                PrintStream out = new PrintStream(new FileOutputStream(reportFile));
+                try {
+                    report.print(out, settings, api.getCounters(), elapsed);
+                } finally {
+                    out.close();
+                }
+            }
+        } finally {
+            sampler.shutdownNow();
+            api.stop();
+        }
+
+        // Poller and watcher threads are daemons, nothing else keeps JVM alive
+    }
+
+    private static void sampleThreads(LoadReport report) {
+        int pluginThreads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(PLUGIN_THREAD_PREFIX)) {
+                pluginThreads++;
+            }
+        }
+        report.sampleThreads(ManagementFactory.getThreadMXBean().getThreadCount(), pluginThreads);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks.load;
+
+import com.qubell.benchmarks.fakeapi.RequestCounters;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Results of a {@link LoadDriver} run: wait latencies, API calls and threads
+ *
+ * @author Alex Krupnov
+ */
+public class LoadReport {
+    private final LatencyRecorder startWaits = new LatencyRecorder();
+    private final LatencyRecorder commandWaits = new LatencyRecorder();
+    private final LatencyRecorder resultWaits = new LatencyRecorder();
+    private final LatencyRecorder buildDurations = new LatencyRecorder();
+    private final Map<String, AtomicInteger> errors = new TreeMap<String, AtomicInteger>();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private volatile int peakThreads;
+    private volatile int peakPluginThreads;
+
+    /**
+     * @return waits of StartInstance steps for Running status
+     */
+    public LatencyRecorder getStartWaits() {
+        return startWaits;
+    }
+
+    /**
+     * @return waits of RunCommand steps for Running status
+     */
+    public LatencyRecorder getCommandWaits() {
+        return commandWaits;
+    }
+
+    /**
+     * @return waits of ResultWait steps for async command result
+     */
+    public LatencyRecorder getResultWaits() {
+        return resultWaits;
+    }
+
+    /**
+     * @return durations of whole builds
+     */
+    public LatencyRecorder getBuildDurations() {
+        return buildDurations;
+    }
+
+    /**
+     * @param success whether build reached expected statuses in all steps
+     */
+    public void recordBuild(boolean success) {
+        (success ? succeeded : failed).incrementAndGet();
+    }
+
+    /**
+     * @param e service error, which failed a build
+     */
+    public void recordError(Exception e) {
+        String key = e.getClass().getSimpleName();
+        synchronized (errors) {
+            AtomicInteger counter = errors.get(key);
+            if (counter == null) {
+                counter = new AtomicInteger();
+                errors.put(key, counter);
+            }
+            counter.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records sampled thread counts, keeping peaks
+     *
+     * @param liveThreads   number of live threads in JVM
+     * @param pluginThreads number of plugin threads (poller, watcher, catalog)
+     */
+    public synchronized void sampleThreads(int liveThreads, int pluginThreads) {
+        peakThreads = Math.max(peakThreads, liveThreads);
+        peakPluginThreads = Math.max(peakPluginThreads, pluginThreads);
+    }
+
+    /**
+     * Prints the report
+     *
+     * @param out           target stream
+     * @param settings      settings of the run
+     * @param counters      API request counters
+     * @param elapsedMillis run duration
+     */
+    public void print(PrintStream out, LoadSettings settings, RequestCounters counters, long elapsedMillis) {
+        int builds = succeeded.get() + failed.get();
+
+        out.println("Settings: " + new TreeMap<String, String>(settings.getValues()));
+        out.printf("Builds: %d succeeded, %d failed in %d ms%n", succeeded.get(), failed.get(), elapsedMillis);
+        synchronized (errors) {
+            out.println("Build errors: " + errors);
+        }
+        out.println();
+        out.printf("API calls: %d total, %.1f per build%n", counters.getTotal(), builds > 0 ? (double) counters.getTotal() / builds : 0d);
+        for (Map.Entry<String, Long> route : counters.getByRoute().entrySet()) {
+            out.printf("  %-40s %8d  %.1f per build%n", route.getKey(), route.getValue(), builds > 0 ? (double) route.getValue() / builds : 0d);
+        }
+        out.println("API responses by status: " + counters.getByStatus());
+        out.println();
+        out.println("StartInstance wait: " + startWaits.describe());
+        out.println("RunCommand wait:    " + commandWaits.describe());
+        out.println("ResultWait wait:    " + resultWaits.describe());
+        out.println("Build duration:     " + buildDurations.describe());
+        out.println();
+        out.printf("Threads: peak %d live, peak %d plugin threads%n", peakThreads, peakPluginThreads);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks.load;
+
+import com.qubell.services.polling.AdaptivePollingSchedule;
+import com.qubell.services.polling.FixedPollingSchedule;
+import com.qubell.services.polling.PollingSchedule;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of {@link LoadDriver}, parsed from <tt>--name=value</tt> arguments
+ *
+ * @author Alex Krupnov
+ */
+public class LoadSettings {
+    private final Map<String, String> values = new HashMap<String, String>();
+
+    /**
+     * @param args command line arguments
+     */
+    public LoadSettings(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value argument, got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+    }
+
+    /**
+     * @return number of simulated builds
+     */
+    public int getBuilds() {
+        return getInt("builds", 300);
+    }
+
+    /**
+     * @return number of builds running at once, as Jenkins executors
+     */
+    public int getExecutors() {
+        return getInt("executors", getBuilds());
+    }
+
+    /**
+     * @return number of fake API request handling threads
+     */
+    public int getServerThreads() {
+        return getInt("serverThreads", 32);
+    }
+
+    /**
+     * @return polling interval, or minimal interval in adaptive mode
+     */
+    public long getPollingMillis() {
+        return getLong("pollingMillis", 1000);
+    }
+
+    /**
+     * @return maximal polling interval in adaptive mode
+     */
+    public long getMaxPollingMillis() {
+        return getLong("maxPollingMillis", 10000);
+    }
+
+    /**
+     * @return whether adaptive polling is used
+     */
+    public boolean isAdaptive() {
+        return Boolean.parseBoolean(get("adaptive", "false"));
+    }
+
+    /**
+     * @return status wait timeout of every step
+     */
+    public long getTimeoutMillis() {
+        return getLong("timeoutMillis", 120000);
+    }
+
+    /**
+     * @return time between async step and result wait step
+     */
+    public long getAsyncGapMillis() {
+        return getLong("asyncGapMillis", 500);
+    }
+
+    /**
+     * @return launch workflow duration
+     */
+    public long getLaunchMillis() {
+        return getLong("launchMillis", 5000);
+    }
+
+    /**
+     * @return command workflow duration
+     */
+    public long getCommandMillis() {
+        return getLong("commandMillis", 2000);
+    }
+
+    /**
+     * @return share of workflows ending with Failed status
+     */
+    public double getWorkflowFailureRate() {
+        return getDouble("workflowFailures", 0);
+    }
+
+    /**
+     * @return minimal injected API latency
+     */
+    public long getMinLatencyMillis() {
+        return getLong("minLatencyMillis", 20);
+    }
+
+    /**
+     * @return maximal injected API latency
+     */
+    public long getMaxLatencyMillis() {
+        return getLong("maxLatencyMillis", 80);
+    }
+
+    /**
+     * @return share of requests answered with 503
+     */
+    public double getServerErrorRate() {
+        return getDouble("serverErrors", 0);
+    }
+
+    /**
+     * @return share of requests answered with 408
+     */
+    public double getRequestTimeoutRate() {
+        return getDouble("requestTimeouts", 0);
+    }
+
+    /**
+     * @return share of command requests answered with 409
+     */
+    public double getBusyRate() {
+        return getDouble("busy", 0);
+    }
+
+    /**
+     * @return report file path, or null to print report only
+     */
+    public String getReportPath() {
+        return get("report", null);
+    }
+
+    /**
+     * @return new polling schedule for a status wait
+     */
+    public PollingSchedule createSchedule() {
+        if (isAdaptive()) {
+            return new AdaptivePollingSchedule(getPollingMillis(), getMaxPollingMillis());
+        }
+        return new FixedPollingSchedule(getPollingMillis());
+    }
+
+    /**
+     * @return all settings, as given on command line
+     */
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    private String get(String name, String defaultValue) {
+        String value = values.get(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private int getInt(String name, int defaultValue) {
+        return Integer.parseInt(get(name, String.valueOf(defaultValue)));
+    }
+
+    private long getLong(String name, long defaultValue) {
+        return Long.parseLong(get(name, String.valueOf(defaultValue)));
+    }
+
+    private double getDouble(String name, double defaultValue) {
+        return Double.parseDouble(get(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.benchmarks.load;
+
+import com.qubell.services.Application;
+import com.qubell.services.Instance;
+import com.qubell.services.InstanceSpecification;
+import com.qubell.services.InstanceStatus;
+import com.qubell.services.InstanceStatusCode;
+import com.qubell.services.LaunchSettings;
+import com.qubell.services.Manifest;
+import com.qubell.services.QubellFacade;
+import com.qubell.services.exceptions.QubellServiceException;
+import com.qubell.services.polling.InstanceStatusPoller;
+import com.qubell.services.polling.PollingSchedule;
+import com.qubell.services.polling.StatusQueue;
+import com.qubell.services.polling.StatusSubscription;
+import com.qubell.services.polling.StatusWatcher;
+import com.qubell.services.polling.WatchCallback;
+import com.qubell.services.polling.WatchResult;
+
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+
+/**
+ * A build of three Qubell steps, making the same service calls as the plugin builders:
+ * <ol>
+ * <li>StartInstance: manifest update, launch and wait for Running</li>
+ * <li>RunCommand: command and wait for Running</li>
+ * <li>RunCommand in async mode, handed off to {@link StatusWatcher}, followed by ResultWait</li>
+ * </ol>
+ * Returns true when all steps reached expected status.
+ *
+ * @author Alex Krupnov
+ */
+public class SimulatedBuild implements Callable<Boolean> {
+    private final int number;
+    private final String applicationId;
+    private final QubellFacade facade;
+    private final LoadSettings settings;
+    private final LoadReport report;
+
+    /**
+     * @param number        build number, used for instance name and watch key
+     * @param applicationId application to launch
+     * @param facade        facade, connected to the API under test
+     * @param settings      load settings
+     * @param report        report to record latencies to
+     */
+    public SimulatedBuild(int number, String applicationId, QubellFacade facade, LoadSettings settings, LoadReport report) {
+        this.number = number;
+        this.applicationId = applicationId;
+        this.facade = facade;
+        this.settings = settings;
+        this.report = report;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Boolean call() throws Exception {
+        long buildStartedAt = System.currentTimeMillis();
+        try {
+            Application application = new Application(applicationId);
+            facade.updateManifest(application, new Manifest("application:\n  name: load-" + number + "\n"));
+            Instance instance = facade.launchInstance(new InstanceSpecification(application, "load-" + number, null),
+                    new LaunchSettings(new HashMap<String, Object>()));
+
+            if (!waitFor(instance, report.getStartWaits())) {
+                return false;
+            }
+
+            facade.runCommand(instance, "update", new HashMap<String, Object>());
+            if (!waitFor(instance, report.getCommandWaits())) {
+                return false;
+            }
+
+            facade.runCommand(instance, "backup", new HashMap<String, Object>());
+            return waitAsync(instance);
+        } catch (QubellServiceException e) {
+            report.recordError(e);
+            return false;
+        } finally {
+            report.getBuildDurations().record(System.currentTimeMillis() - buildStartedAt);
+        }
+    }
+
+    private boolean waitFor(Instance instance, LatencyRecorder waits) throws QubellServiceException, InterruptedException {
+        long startedAt = System.currentTimeMillis();
+        long timeoutMillis = settings.getTimeoutMillis();
+
+        StatusQueue statusQueue = new StatusQueue();
+        StatusSubscription subscription = InstanceStatusPoller.getInstance().subscribe(
+                instance, facade, createSchedule(), timeoutMillis, statusQueue);
+        try {
+            while (true) {
+                InstanceStatus status = statusQueue.next(Math.max(timeoutMillis - (System.currentTimeMillis() - startedAt), 0));
+                if (status == null || status.getStatus() == InstanceStatusCode.FAILED) {
+                    return false;
+                }
+                if (status.getStatus() == InstanceStatusCode.RUNNING) {
+                    waits.record(System.currentTimeMillis() - startedAt);
+                    return true;
+                }
+            }
+        } finally {
+            subscription.unsubscribe();
+        }
+    }
+
+    private boolean waitAsync(Instance instance) throws InterruptedException {
+        String watchKey = "load#" + number;
+        StatusWatcher.getInstance().watch(watchKey, instance, facade, createSchedule(), InstanceStatusCode.RUNNING,
+                settings.getTimeoutMillis(), new WatchCallback() {
+            public void onCompleted(WatchResult result) {
+            }
+        });
+
+        // Build steps between async step and result wait, executor is released meanwhile
+        Thread.sleep(settings.getAsyncGapMillis());
+
+        long startedAt = System.currentTimeMillis();
+        WatchResult result = StatusWatcher.getInstance().awaitResult(watchKey, settings.getTimeoutMillis());
+        if (result == null || result.getOutcome() != WatchResult.Outcome.REACHED) {
+            return false;
+        }
+        report.getResultWaits().record(System.currentTimeMillis() - startedAt);
+        return true;
+    }
+
+    private PollingSchedule createSchedule() {
+        return settings.createSchedule();
+    }
+}
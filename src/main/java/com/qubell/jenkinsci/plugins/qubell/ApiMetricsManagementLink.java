@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell;
+
+import com.qubell.services.ws.ApiMetrics;
+import com.qubell.services.ws.CircuitBreaker;
+import com.qubell.services.ws.CircuitBreakerRegistry;
+import com.qubell.services.ws.OperationMetrics;
+import com.qubell.services.ws.RateLimiter;
+import com.qubell.services.ws.RateLimiterRegistry;
+import hudson.Extension;
+import hudson.model.ManagementLink;
+
+import java.util.List;
+
+/**
+ * Management page with Qubell API call counters and latencies, see {@link ApiMetrics}
+ * @author Alex Krupnov
+ */
+@Extension
+public class ApiMetricsManagementLink extends ManagementLink {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getIconFileName() {
+        return "graph.png";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return "Qubell API Metrics";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return "Calls, errors and latencies of Qubell API operations made by all builds";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getUrlName() {
+        return "qubell-metrics";
+    }
+
+    /**
+     * @return metrics of all operations called since start
+     */
+    public List<OperationMetrics> getOperations() {
+        return ApiMetrics.getInstance().getOperations();
+    }
+
+    /**
+     * @return rate limiters with their queues
+     */
+    public List<RateLimiter> getRateLimiters() {
+        return RateLimiterRegistry.getInstance().getLimiters();
+    }
+
+    /**
+     * @return circuit breakers with their states
+     */
+    public List<CircuitBreaker> getCircuitBreakers() {
+        return CircuitBreakerRegistry.getInstance().getBreakers();
+    }
+}
@@ -16,6 +16,11 @@
 
 package com.qubell.jenkinsci.plugins.qubell;
 
+import com.qubell.services.CatalogCache;
+import com.qubell.services.ws.CircuitBreakerRegistry;
+import com.qubell.services.ws.RateLimiterRegistry;
+import com.qubell.services.ws.RequestCompression;
+import com.qubell.services.ws.WebClientPool;
 import hudson.Extension;
 import hudson.util.FormValidation;
 import jenkins.model.GlobalConfiguration;
@@ -39,10 +44,44 @@ public class Configuration extends GlobalConfiguration {
     private int statusPollingInterval = DEFAULT_POLLING_INTERVAL;
     private boolean skipCertificateChecks;
     private boolean enableMessageLogging = false;
+    private boolean adaptivePolling = false;
+    private boolean historicalTimeouts = false;
+    private boolean reuseManifestVersions = true;
+    private int minPollingInterval = DEFAULT_MIN_POLLING_INTERVAL;
+    private int maxPollingInterval = DEFAULT_MAX_POLLING_INTERVAL;
+    private int catalogCacheTtl = DEFAULT_CATALOG_CACHE_TTL;
+    private boolean parallelCatalogFetch = false;
+    private int catalogFetchConcurrency = DEFAULT_CATALOG_FETCH_CONCURRENCY;
+    private int catalogFetchTimeout = DEFAULT_CATALOG_FETCH_TIMEOUT;
+    private int maxRetryAttempts = DEFAULT_MAX_RETRY_ATTEMPTS;
+    private int buildRetryBudget = DEFAULT_BUILD_RETRY_BUDGET;
+    private double readRequestsPerSecond = DEFAULT_READ_REQUESTS_PER_SECOND;
+    private double mutatingRequestsPerSecond = DEFAULT_MUTATING_REQUESTS_PER_SECOND;
+    private boolean compressPayloads = false;
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
 
     public static final int DEFAULT_POLLING_INTERVAL = 5;
+    public static final int DEFAULT_MIN_POLLING_INTERVAL = 2;
+    public static final int DEFAULT_MAX_POLLING_INTERVAL = 60;
+    public static final int DEFAULT_CATALOG_CACHE_TTL = 300;
+    public static final int DEFAULT_CATALOG_FETCH_CONCURRENCY = 4;
+    public static final int DEFAULT_CATALOG_FETCH_TIMEOUT = 30;
+    public static final int DEFAULT_MAX_RETRY_ATTEMPTS = 4;
+    public static final int DEFAULT_BUILD_RETRY_BUDGET = 30;
+    public static final double DEFAULT_READ_REQUESTS_PER_SECOND = 0;
+    public static final double DEFAULT_MUTATING_REQUESTS_PER_SECOND = 0;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
     public static final String DEFAULT_URL = "https://express.qubell.com/";
 
+    /**
+     * Upper bounds of numeric settings, higher values are clamped to them
+     */
+    public static final int MAX_CATALOG_CACHE_TTL = 86400;
+    public static final int MAX_CATALOG_FETCH_CONCURRENCY = 16;
+    public static final int MAX_CATALOG_FETCH_TIMEOUT = 600;
+    public static final int MAX_RETRY_ATTEMPTS = 10;
+    public static final int MAX_BUILD_RETRY_BUDGET = 1000;
+
 
     /**
      * @return the Jenkins managed singleton for the configuration object
@@ -79,12 +118,34 @@ public class Configuration extends GlobalConfiguration {
         login = formData.getString("login");
         password = formData.getString("password");
         url = formData.getString("url");
-        statusPollingInterval = formData.getInt("statusPollingInterval");
+        statusPollingInterval = Math.max(1, formData.getInt("statusPollingInterval"));
         skipCertificateChecks = formData.getBoolean("skipCertificateChecks");
         enableMessageLogging = formData.getBoolean("enableMessageLogging");
+        adaptivePolling = formData.optBoolean("adaptivePolling");
+        historicalTimeouts = formData.optBoolean("historicalTimeouts");
+        reuseManifestVersions = formData.optBoolean("reuseManifestVersions", true);
+        minPollingInterval = Math.max(1, formData.optInt("minPollingInterval", DEFAULT_MIN_POLLING_INTERVAL));
+        maxPollingInterval = Math.max(minPollingInterval, formData.optInt("maxPollingInterval", DEFAULT_MAX_POLLING_INTERVAL));
+        catalogCacheTtl = clamp(formData.optInt("catalogCacheTtl", DEFAULT_CATALOG_CACHE_TTL), 0, MAX_CATALOG_CACHE_TTL);
+        parallelCatalogFetch = formData.optBoolean("parallelCatalogFetch");
+        catalogFetchConcurrency = clamp(formData.optInt("catalogFetchConcurrency", DEFAULT_CATALOG_FETCH_CONCURRENCY), 1, MAX_CATALOG_FETCH_CONCURRENCY);
+        catalogFetchTimeout = clamp(formData.optInt("catalogFetchTimeout", DEFAULT_CATALOG_FETCH_TIMEOUT), 1, MAX_CATALOG_FETCH_TIMEOUT);
+        maxRetryAttempts = clamp(formData.optInt("maxRetryAttempts", DEFAULT_MAX_RETRY_ATTEMPTS), 0, MAX_RETRY_ATTEMPTS);
+        buildRetryBudget = clamp(formData.optInt("buildRetryBudget", DEFAULT_BUILD_RETRY_BUDGET), 0, MAX_BUILD_RETRY_BUDGET);
+        readRequestsPerSecond = Math.max(0, formData.optDouble("readRequestsPerSecond", DEFAULT_READ_REQUESTS_PER_SECOND));
+        mutatingRequestsPerSecond = Math.max(0, formData.optDouble("mutatingRequestsPerSecond", DEFAULT_MUTATING_REQUESTS_PER_SECOND));
+        compressPayloads = formData.optBoolean("compressPayloads");
+        compressionThreshold = Math.max(0, formData.optInt("compressionThreshold", DEFAULT_COMPRESSION_THRESHOLD));
         // ^Can also use req.bindJSON(this, formData);
         //  (easier when there are many fields; need set* methods for this, like setUseFrench)
         save();
+
+        // Pooled clients carry url, credentials and TLS settings, so they have to be rebuilt
+        WebClientPool.getInstance().clear();
+        CircuitBreakerRegistry.getInstance().clear();
+        RateLimiterRegistry.getInstance().clear();
+        RequestCompression.getInstance().clear();
+        CatalogCache.getInstance().invalidate();
         return true;
     }
 
@@ -137,6 +198,148 @@ public class Configuration extends GlobalConfiguration {
         return enableMessageLogging;
     }
 
+    /**
+     * When true, instance status is polled with adaptive interval, driven by workflow progress,
+     * instead of fixed {@link #getStatusPollingInterval()}
+     * @return true when adaptive polling enabled
+     */
+    public boolean isAdaptivePolling() {
+        return adaptivePolling;
+    }
+
+    /**
+     * When true, status waits use timeout suggested by {@link DurationHistory} instead of the one configured in build step,
+     * once enough runs of the same application, workflow and environment were recorded
+     * @return true when historical timeouts enabled
+     */
+    public boolean isHistoricalTimeouts() {
+        return historicalTimeouts;
+    }
+
+    /**
+     * When true, a manifest byte-identical to an earlier upload is not uploaded again,
+     * the version created by that upload is launched instead, see {@link ManifestVersionCache}
+     * @return true when manifest versions are reused
+     */
+    public boolean isReuseManifestVersions() {
+        return reuseManifestVersions;
+    }
+
+    /**
+     * Lower bound of adaptive polling interval
+     * @return value in seconds
+     */
+    public int getMinPollingInterval() {
+        return minPollingInterval;
+    }
+
+    /**
+     * Upper bound of adaptive polling interval
+     * @return value in seconds
+     */
+    public int getMaxPollingInterval() {
+        return maxPollingInterval;
+    }
+
+    /**
+     * Time to live of cached applications and environments lists, see {@link CatalogCache}
+     * @return value in seconds, 0 disables caching
+     */
+    public int getCatalogCacheTtl() {
+        return catalogCacheTtl;
+    }
+
+    /**
+     * When true, applications and environments of several organizations are listed concurrently
+     * @return true when parallel fetch enabled
+     */
+    public boolean isParallelCatalogFetch() {
+        return parallelCatalogFetch;
+    }
+
+    /**
+     * Maximum amount of organizations listed at once in parallel fetch mode
+     * @return concurrency limit
+     */
+    public int getCatalogFetchConcurrency() {
+        return catalogFetchConcurrency;
+    }
+
+    /**
+     * Time limit for listing all organizations, organizations not listed within it are reported as failed
+     * @return value in seconds
+     */
+    public int getCatalogFetchTimeout() {
+        return catalogFetchTimeout;
+    }
+
+    /**
+     * Maximum amount of retries of a single API call on transient failures, see {@link com.qubell.services.ws.RetryPolicy}
+     * @return retries count, 0 disables retries
+     */
+    public int getMaxRetryAttempts() {
+        return maxRetryAttempts;
+    }
+
+    /**
+     * Maximum amount of API call retries during a single build, see {@link com.qubell.services.ws.RetryBudget}
+     * @return retries count
+     */
+    public int getBuildRetryBudget() {
+        return buildRetryBudget;
+    }
+
+    /**
+     * Controller-wide limit of read API calls (statuses, catalog), see {@link com.qubell.services.ws.RateLimiter}
+     * @return calls per second, 0 disables the limit
+     */
+    public double getReadRequestsPerSecond() {
+        return readRequestsPerSecond;
+    }
+
+    /**
+     * Controller-wide limit of mutating API calls (launch, manifest update, commands)
+     * @return calls per second, 0 disables the limit
+     */
+    public double getMutatingRequestsPerSecond() {
+        return mutatingRequestsPerSecond;
+    }
+
+    /**
+     * When true, request bodies above {@link #getCompressionThreshold()} are sent gzip compressed and gzip responses are accepted.
+     * Accounts rejecting compressed bodies fall back to uncompressed ones, see {@link RequestCompression}
+     * @return true when payload compression enabled
+     */
+    public boolean isCompressPayloads() {
+        return compressPayloads;
+    }
+
+    /**
+     * Size of request body above which it is compressed
+     * @return size in bytes
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Amount of API calls currently waiting for rate limiter permit
+     * @return queue depth
+     */
+    public int getApiQueueDepth() {
+        return RateLimiterRegistry.getInstance().getQueueDepth();
+    }
+
+    /**
+     * Drops cached applications and environments, so they are loaded on next request
+     *
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     */
+    public FormValidation doRefreshCatalog() {
+        CatalogCache.getInstance().invalidate();
+        return FormValidation.ok("Applications and environments will be reloaded on next request");
+    }
+
     /**
      * Validates polling interval value: integer, greater then zero
      *
@@ -160,4 +363,152 @@ public class Configuration extends GlobalConfiguration {
         return FormValidation.ok();
     }
 
+    /**
+     * Validates min polling interval value: integer, greater then zero
+     *
+     * @param value string value of interval passed from configuration form
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     * @throws java.io.IOException
+     * @throws javax.servlet.ServletException
+     */
+    public FormValidation doCheckMinPollingInterval(@QueryParameter String value)
+            throws IOException, ServletException {
+        return doCheckStatusPollingInterval(value);
+    }
+
+    /**
+     * Validates max polling interval value: integer, greater then zero
+     *
+     * @param value string value of interval passed from configuration form
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     * @throws java.io.IOException
+     * @throws javax.servlet.ServletException
+     */
+    public FormValidation doCheckMaxPollingInterval(@QueryParameter String value)
+            throws IOException, ServletException {
+        return doCheckStatusPollingInterval(value);
+    }
+
+    /**
+     * Validates catalog cache TTL value: integer, from 0 to {@link #MAX_CATALOG_CACHE_TTL}
+     *
+     * @param value string value of TTL passed from configuration form
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     */
+    public FormValidation doCheckCatalogCacheTtl(@QueryParameter String value) {
+        return checkRange(value, 0, MAX_CATALOG_CACHE_TTL, "Cache TTL");
+    }
+
+    /**
+     * Validates catalog fetch concurrency: integer, from 1 to {@link #MAX_CATALOG_FETCH_CONCURRENCY}
+     *
+     * @param value string value passed from configuration form
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     */
+    public FormValidation doCheckCatalogFetchConcurrency(@QueryParameter String value) {
+        return checkRange(value, 1, MAX_CATALOG_FETCH_CONCURRENCY, "Fetch concurrency");
+    }
+
+    /**
+     * Validates catalog fetch timeout: integer, from 1 to {@link #MAX_CATALOG_FETCH_TIMEOUT}
+     *
+     * @param value string value passed from configuration form
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     */
+    public FormValidation doCheckCatalogFetchTimeout(@QueryParameter String value) {
+        return checkRange(value, 1, MAX_CATALOG_FETCH_TIMEOUT, "Fetch timeout");
+    }
+
+    /**
+     * Validates retry settings: integer, from 0 to {@link #MAX_RETRY_ATTEMPTS}
+     *
+     * @param value string value passed from configuration form
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     */
+    public FormValidation doCheckMaxRetryAttempts(@QueryParameter String value) {
+        return checkRange(value, 0, MAX_RETRY_ATTEMPTS, "Retry attempts");
+    }
+
+    /**
+     * Validates build retry budget: integer, from 0 to {@link #MAX_BUILD_RETRY_BUDGET}
+     *
+     * @param value string value passed from configuration form
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     */
+    public FormValidation doCheckBuildRetryBudget(@QueryParameter String value) {
+        return checkRange(value, 0, MAX_BUILD_RETRY_BUDGET, "Retry budget");
+    }
+
+    private FormValidation checkRange(String value, int min, int max, String name) {
+        String message = String.format("%s must be an integer value from %d to %d", name, min, max);
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < min || parsed > max) {
+                return FormValidation.error(message);
+            }
+        } catch (NumberFormatException nfe) {
+            return FormValidation.error(message);
+        }
+
+        return FormValidation.ok();
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.min(Math.max(value, min), max);
+    }
+
+    /**
+     * Validates compression threshold: integer, not negative
+     *
+     * @param value string value passed from configuration form
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     */
+    public FormValidation doCheckCompressionThreshold(@QueryParameter String value) {
+        return checkNotNegative(value, "Compression threshold must be zero or a positive integer value");
+    }
+
+    private FormValidation checkNotNegative(String value, String message) {
+        try {
+            if (Integer.parseInt(value) < 0) {
+                return FormValidation.error(message);
+            }
+        } catch (NumberFormatException nfe) {
+            return FormValidation.error(message);
+        }
+
+        return FormValidation.ok();
+    }
+
+    /**
+     * Validates rate limit: number, not negative
+     *
+     * @param value string value passed from configuration form
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     */
+    public FormValidation doCheckReadRequestsPerSecond(@QueryParameter String value) {
+        return checkRate(value);
+    }
+
+    /**
+     * Validates rate limit: number, not negative
+     *
+     * @param value string value passed from configuration form
+     * @return jenkins validation container, see {@link hudson.util.FormValidation}
+     */
+    public FormValidation doCheckMutatingRequestsPerSecond(@QueryParameter String value) {
+        return checkRate(value);
+    }
+
+    private FormValidation checkRate(String value) {
+        try {
+            if (Double.parseDouble(value) < 0) {
+                return FormValidation.error("Rate must be zero or a positive number");
+            }
+        } catch (NumberFormatException nfe) {
+            return FormValidation.error("Rate must be zero or a positive number");
+        }
+
+        return FormValidation.ok();
+    }
+
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller-wide store of status wait durations per (application, workflow, environment)
+ * <p/>
+ * Durations of waits which reached expected status are kept in {@code qubell-durations.xml} under Jenkins root,
+ * and used to suggest timeouts and to poll densely around the expected completion time,
+ * see {@link com.qubell.services.polling.HistoricalPollingSchedule}.
+ * @author Alex Krupnov
+ */
+public class DurationHistory {
+    /**
+     * Amount of samples required before history is used
+     */
+    public static final int MIN_SAMPLES = 5;
+
+    /**
+     * Lower bound of suggested timeout
+     */
+    public static final long MIN_SUGGESTED_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Amount of combinations kept, the oldest ones are dropped first
+     */
+    static final int MAX_KEYS = 1000;
+
+    private static final XmlFileStore<DurationHistory> STORE = new XmlFileStore<DurationHistory>("qubell-durations.xml", "Qubell duration history", DurationHistory.class);
+    private static DurationHistory instance;
+
+    private final Map<String, DurationStats> stats = new LinkedHashMap<String, DurationStats>();
+
+    /**
+     * @return the controller-wide store, loaded from disk on first access
+     */
+    public static synchronized DurationHistory get() {
+        if (instance == null) {
+            instance = load();
+        }
+        return instance;
+    }
+
+    /**
+     * Builds store key
+     * @param applicationId application id
+     * @param workflow      workflow or command name, such as launch
+     * @param environmentId environment id, may be null
+     * @return key or null when application or workflow is unknown
+     */
+    public static String getKey(String applicationId, String workflow, String environmentId) {
+        if (applicationId == null || workflow == null) {
+            return null;
+        }
+        return String.format("%s/%s/%s", applicationId, workflow, environmentId != null ? environmentId : "default");
+    }
+
+    /**
+     * Records duration of a wait which reached expected status and saves the store
+     * @param key            combination key, see {@link #getKey(String, String, String)}
+     * @param durationMillis wait duration
+     */
+    public void record(String key, long durationMillis) {
+        synchronized (this) {
+            DurationStats keyStats = stats.remove(key);
+            if (keyStats == null) {
+                keyStats = new DurationStats();
+            }
+            // Re-inserted, so most recently used combinations stay at the end
+            stats.put(key, keyStats);
+            keyStats.add(durationMillis);
+
+            Iterator<String> oldest = stats.keySet().iterator();
+            while (stats.size() > MAX_KEYS) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        save();
+    }
+
+    /**
+     * Gets statistics of a combination, when enough samples were collected
+     * @param key combination key
+     * @return statistics or null
+     */
+    public synchronized DurationStats getStats(String key) {
+        DurationStats keyStats = key != null ? stats.get(key) : null;
+        return keyStats != null && keyStats.getCount() >= MIN_SAMPLES ? keyStats : null;
+    }
+
+    /**
+     * Suggests a timeout: one and a half of 99th percentile, not less than {@link #MIN_SUGGESTED_TIMEOUT_MILLIS}
+     * @param keyStats statistics of a combination
+     * @return timeout in milliseconds
+     */
+    public static long getSuggestedTimeout(DurationStats keyStats) {
+        return Math.max(keyStats.getPercentile(99) * 3 / 2, MIN_SUGGESTED_TIMEOUT_MILLIS);
+    }
+
+    private static DurationHistory load() {
+        DurationHistory loaded = STORE.load();
+        return loaded != null ? loaded : new DurationHistory();
+    }
+
+    private synchronized void save() {
+        STORE.save(this);
+    }
+}
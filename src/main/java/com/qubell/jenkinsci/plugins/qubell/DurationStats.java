@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell;
+
+import java.util.Arrays;
+
+/**
+ * Most recent durations of one (application, workflow, environment) combination, see {@link DurationHistory}
+ * Keeps a fixed-size ring of samples, so the store stays compact no matter how many builds ran
+ * @author Alex Krupnov
+ */
+public class DurationStats {
+    /**
+     * Amount of most recent samples kept
+     */
+    public static final int MAX_SAMPLES = 50;
+
+    private final long[] samples = new long[MAX_SAMPLES];
+    private int next;
+    private int count;
+
+    /**
+     * Adds a sample, replacing the oldest one when ring is full
+     * @param durationMillis duration of a completed wait
+     */
+    public synchronized void add(long durationMillis) {
+        samples[next] = durationMillis;
+        next = (next + 1) % MAX_SAMPLES;
+        count = Math.min(count + 1, MAX_SAMPLES);
+    }
+
+    /**
+     * @return amount of kept samples
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Nearest-rank percentile of kept samples
+     * @param percentile percentile, 0 to 100
+     * @return duration in milliseconds, 0 when there are no samples
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
@@ -16,57 +16,112 @@
 
 package com.qubell.jenkinsci.plugins.qubell;
 
-import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.ObjectReader;
+import org.codehaus.jackson.map.ObjectWriter;
 import org.codehaus.jackson.type.TypeReference;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Simple json parser
+ * <p/>
+ * Mapper, reader and writer are thread-safe once configured, so they are shared by all calls
+ * and keep their serializer caches warm.
  * @author Alex Krupnov
  */
 public class JsonParser {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static {
+        // Jackson closes source stream after reading a value, callers own their streams
+        MAPPER.getJsonFactory().configure(org.codehaus.jackson.JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+    }
+
+    private static final ObjectReader MAP_READER = MAPPER.reader(new TypeReference<HashMap<String, Object>>() {
+    });
+    private static final ObjectWriter WRITER = MAPPER.writer();
+
     /**
      * Parses a key value pair map from simple json expression
      * @param value string representation of json object
      * @return parsed value or null for invalid input
      */
     public static Map<String, Object> parseMap(String value) {
-        JsonFactory factory = new JsonFactory();
-        ObjectMapper mapper = new ObjectMapper(factory);
-        TypeReference<HashMap<String,Object>> typeRef
-                = new TypeReference<
-                HashMap<String,Object>
-                >() {};
-        HashMap<String,Object> parsedMap;
-
         try {
-            parsedMap
-                    = mapper.readValue(value, typeRef);
+            return MAP_READER.readValue(value);
+        } catch (IOException e) {
+            return null;
+        }
+    }
 
-            return parsedMap;
+    /**
+     * Parses a key value pair map from json stream, without buffering it into a string
+     * @param stream stream with json object, not closed by this method
+     * @return parsed value or null for invalid input
+     */
+    public static Map<String, Object> parse(InputStream stream) {
+        try {
+            return MAP_READER.readValue(stream);
         } catch (IOException e) {
             return null;
         }
     }
 
+    /**
+     * Binds json bytes to a typed object
+     * @param bytes json document
+     * @param type target type
+     * @param <T> target type
+     * @return bound object
+     * @throws IOException for invalid input
+     */
+    public static <T> T parse(byte[] bytes, Class<T> type) throws IOException {
+        return MAPPER.readValue(bytes, type);
+    }
+
     /**
      * Serializes a free form map to json string
      * @param obj object to be serialized to string
      * @return string json
      */
     public static String serialize(Object obj) {
-        JsonFactory factory = new JsonFactory();
-        ObjectMapper mapper = new ObjectMapper(factory);
-
         try {
-            return mapper.writeValueAsString(obj);
+            return WRITER.writeValueAsString(obj);
         } catch (IOException e) {
             return null;
         }
     }
 
+    /**
+     * Serializes a free form object directly to the stream
+     * @param obj object to be serialized
+     * @param stream target stream, not closed by this method
+     * @throws IOException when stream can not be written
+     */
+    public static void serialize(Object obj, OutputStream stream) throws IOException {
+        WRITER.writeValue(new NonClosingOutputStream(stream), obj);
+    }
+
+    /**
+     * Jackson closes target stream after writing a value, which is not desired for servlet and workspace streams
+     */
+    private static class NonClosingOutputStream extends java.io.FilterOutputStream {
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell;
+
+import hudson.Util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controller-wide store of application versions created from manifests, keyed by manifest content digest
+ * <p/>
+ * Kept in {@code qubell-manifests.xml} under Jenkins root, so a build uploading a manifest byte-identical
+ * to an earlier upload launches the known version instead of creating a new one.
+ * @author Alex Krupnov
+ */
+public class ManifestVersionCache {
+    /**
+     * Amount of distinct manifests remembered per application, the oldest ones are dropped first
+     */
+    static final int MAX_MANIFESTS_PER_APPLICATION = 20;
+
+    private static final XmlFileStore<ManifestVersionCache> STORE = new XmlFileStore<ManifestVersionCache>("qubell-manifests.xml", "Qubell manifest versions", ManifestVersionCache.class);
+    private static ManifestVersionCache instance;
+
+    private final Map<String, LinkedHashMap<String, Integer>> versions = new HashMap<String, LinkedHashMap<String, Integer>>();
+
+    /**
+     * @return the controller-wide store, loaded from disk on first access
+     */
+    public static synchronized ManifestVersionCache get() {
+        if (instance == null) {
+            instance = load();
+        }
+        return instance;
+    }
+
+    /**
+     * Digest identifying manifest content
+     * @param manifest manifest content
+     * @return MD5 hex digest
+     */
+    public static String getDigest(String manifest) {
+        return Util.getDigestOf(manifest);
+    }
+
+    /**
+     * Finds version created earlier from the same manifest
+     * @param configuration plugin configuration, identifies the account
+     * @param applicationId application id
+     * @param digest        manifest digest, see {@link #getDigest(String)}
+     * @return version or null when manifest was not uploaded before
+     */
+    public synchronized Integer getVersion(Configuration configuration, String applicationId, String digest) {
+        Map<String, Integer> applicationVersions = versions.get(getKey(configuration, applicationId));
+        return applicationVersions != null ? applicationVersions.get(digest) : null;
+    }
+
+    /**
+     * Remembers version created from the manifest and saves the store
+     * @param configuration plugin configuration, identifies the account
+     * @param applicationId application id
+     * @param digest        manifest digest
+     * @param version       version returned by manifest update
+     */
+    public void putVersion(Configuration configuration, String applicationId, String digest, Integer version) {
+        synchronized (this) {
+            String key = getKey(configuration, applicationId);
+            LinkedHashMap<String, Integer> applicationVersions = versions.get(key);
+            if (applicationVersions == null) {
+                applicationVersions = new LinkedHashMap<String, Integer>();
+                versions.put(key, applicationVersions);
+            }
+            applicationVersions.remove(digest);
+            applicationVersions.put(digest, version);
+
+            Iterator<String> oldest = applicationVersions.keySet().iterator();
+            while (applicationVersions.size() > MAX_MANIFESTS_PER_APPLICATION) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        save();
+    }
+
+    /**
+     * Forgets version of the manifest, for example when it can no longer be launched
+     * @param configuration plugin configuration, identifies the account
+     * @param applicationId application id
+     * @param digest        manifest digest
+     */
+    public void removeVersion(Configuration configuration, String applicationId, String digest) {
+        synchronized (this) {
+            Map<String, Integer> applicationVersions = versions.get(getKey(configuration, applicationId));
+            if (applicationVersions == null || applicationVersions.remove(digest) == null) {
+                return;
+            }
+        }
+        save();
+    }
+
+    private static String getKey(Configuration configuration, String applicationId) {
+        return String.format("%s/%s", configuration.getUrl(), applicationId);
+    }
+
+    private static ManifestVersionCache load() {
+        ManifestVersionCache loaded = STORE.load();
+        return loaded != null ? loaded : new ManifestVersionCache();
+    }
+
+    private synchronized void save() {
+        STORE.save(this);
+    }
+}
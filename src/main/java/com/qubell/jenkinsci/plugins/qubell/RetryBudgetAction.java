@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell;
+
+import com.qubell.services.ws.RetryBudget;
+import hudson.model.Action;
+
+/**
+ * Custom {@link Action} holding API retry budget, shared by all Qubell steps of a build
+ * Budget is not persisted, a build resumed after restart starts with a fresh one
+ * @author Alex Krupnov
+ */
+public class RetryBudgetAction implements Action {
+    private transient RetryBudget retryBudget;
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getIconFileName() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getDisplayName() {
+        return "RetryBudgetAction";
+    }
+
+    /**
+     * Gets retry budget of the build, creating it on first access
+     * @param limit maximum amount of retries for a new budget
+     * @return budget of the build
+     */
+    public synchronized RetryBudget getRetryBudget(int limit) {
+        if (retryBudget == null) {
+            retryBudget = new RetryBudget(limit);
+        }
+        return retryBudget;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getUrlName() {
+        return null;
+    }
+}
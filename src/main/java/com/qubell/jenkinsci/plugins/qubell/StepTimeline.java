@@ -0,0 +1,231 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell;
+
+import com.qubell.services.InstanceStatus;
+import com.qubell.services.InstanceStatusCode;
+import com.qubell.services.Workflow;
+import com.qubell.services.WorkflowStep;
+import com.qubell.services.WorkflowStepStatus;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timeline of a single Qubell build step: API calls, instance, workflow and workflow step transitions,
+ * and how status wait time split between API calls and sleeping
+ * @author Alex Krupnov
+ */
+@ExportedBean(defaultVisibility = 2)
+public class StepTimeline {
+    private final String name;
+    private final long startedAt;
+    private final List<TimelineEvent> events = new ArrayList<TimelineEvent>();
+
+    private String instanceId;
+    private InstanceStatusCode expectedStatus;
+    private int pollCount;
+    private long waitMillis;
+    private long apiMillis;
+    private long timeToExpectedStatusMillis = -1;
+
+    private transient InstanceStatusCode lastStatus;
+    private transient String lastWorkflow;
+    private transient Map<String, WorkflowStepStatus> lastStepStatuses;
+
+    /**
+     * @param name step name, such as builder display name
+     */
+    public StepTimeline(String name) {
+        this.name = name;
+        this.startedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Records an API call, made by build step itself
+     *
+     * @param kind          kind of call
+     * @param description   call details
+     * @param callStartedAt time call started, milliseconds since epoch
+     */
+    public synchronized void addCall(TimelineEvent.Kind kind, String description, long callStartedAt) {
+        long now = System.currentTimeMillis();
+        events.add(new TimelineEvent(callStartedAt - startedAt, now - callStartedAt, kind, description));
+    }
+
+    /**
+     * Records an event happened just now
+     *
+     * @param kind        kind of event
+     * @param description event details
+     */
+    public synchronized void addEvent(TimelineEvent.Kind kind, String description) {
+        events.add(new TimelineEvent(System.currentTimeMillis() - startedAt, 0, kind, description));
+    }
+
+    /**
+     * Records transitions of instance status, current workflow and its steps since the previous status
+     *
+     * @param status polled instance status
+     */
+    public synchronized void onStatus(InstanceStatus status) {
+        if (status.getStatus() != lastStatus) {
+            addEvent(TimelineEvent.Kind.INSTANCE_STATUS, String.valueOf(status.getStatus()));
+            lastStatus = status.getStatus();
+            if (status.getStatus() == expectedStatus && timeToExpectedStatusMillis < 0) {
+                timeToExpectedStatusMillis = System.currentTimeMillis() - startedAt;
+                addEvent(TimelineEvent.Kind.EXPECTED_STATUS, String.valueOf(expectedStatus));
+            }
+        }
+
+        Workflow workflow = status.getCurrentWorkflow();
+        if (workflow == null) {
+            return;
+        }
+
+        String workflowState = String.format("%s: %s", workflow.getName(), workflow.getStatus());
+        if (!workflowState.equals(lastWorkflow)) {
+            addEvent(TimelineEvent.Kind.WORKFLOW, workflowState);
+            lastWorkflow = workflowState;
+        }
+
+        if (workflow.getSteps() == null) {
+            return;
+        }
+        if (lastStepStatuses == null) {
+            lastStepStatuses = new HashMap<String, WorkflowStepStatus>();
+        }
+        for (WorkflowStep step : workflow.getSteps()) {
+            String key = workflow.getName() + "/" + step.getName();
+            if (step.getStatus() != lastStepStatuses.get(key)) {
+                addEvent(TimelineEvent.Kind.WORKFLOW_STEP, String.format("%s: %s", key, step.getStatus()));
+                lastStepStatuses.put(key, step.getStatus());
+            }
+        }
+    }
+
+    /**
+     * Records totals of a finished status wait
+     *
+     * @param pollCount  amount of status polls made while waiting
+     * @param waitMillis total wait time
+     * @param apiMillis  part of wait time spent in status calls
+     */
+    public synchronized void onWaitFinished(int pollCount, long waitMillis, long apiMillis) {
+        this.pollCount += pollCount;
+        this.waitMillis += waitMillis;
+        this.apiMillis += apiMillis;
+    }
+
+    /**
+     * @param instanceId id of the instance the step works with
+     */
+    public synchronized void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * @param expectedStatus status the step waits for
+     */
+    public synchronized void setExpectedStatus(InstanceStatusCode expectedStatus) {
+        this.expectedStatus = expectedStatus;
+    }
+
+    /**
+     * @return step name
+     */
+    @Exported
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return step start time, milliseconds since epoch
+     */
+    @Exported
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * @return id of the instance, null until known
+     */
+    @Exported
+    public synchronized String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * @return status the step waits for
+     */
+    @Exported
+    public synchronized InstanceStatusCode getExpectedStatus() {
+        return expectedStatus;
+    }
+
+    /**
+     * @return recorded events, ordered by time
+     */
+    @Exported
+    public synchronized List<TimelineEvent> getEvents() {
+        return new ArrayList<TimelineEvent>(events);
+    }
+
+    /**
+     * @return amount of status polls
+     */
+    @Exported
+    public synchronized int getPollCount() {
+        return pollCount;
+    }
+
+    /**
+     * @return time spent waiting for status, API calls included
+     */
+    @Exported
+    public synchronized long getWaitMillis() {
+        return waitMillis;
+    }
+
+    /**
+     * @return time spent in status API calls
+     */
+    @Exported
+    public synchronized long getApiMillis() {
+        return apiMillis;
+    }
+
+    /**
+     * @return time spent sleeping between status polls
+     */
+    @Exported
+    public synchronized long getSleepMillis() {
+        return Math.max(waitMillis - apiMillis, 0);
+    }
+
+    /**
+     * @return time from step start to expected status, -1 when it was not reached
+     */
+    @Exported
+    public synchronized long getTimeToExpectedStatusMillis() {
+        return timeToExpectedStatusMillis;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Action;
+import hudson.model.Api;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build {@link Action} holding timelines of Qubell build steps, see {@link StepTimeline}
+ * Rendered as a build page, also available as JSON via {@code qubell-timeline/api/json}
+ * @author Alex Krupnov
+ */
+@ExportedBean
+public class TimelineAction implements Action {
+    private final List<StepTimeline> steps = new ArrayList<StepTimeline>();
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getIconFileName() {
+        return "clock.png";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getDisplayName() {
+        return "Qubell Timeline";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getUrlName() {
+        return "qubell-timeline";
+    }
+
+    /**
+     * Starts timeline of a new build step
+     * @param name step name
+     * @return timeline of the step
+     */
+    public synchronized StepTimeline startStep(String name) {
+        StepTimeline step = new StepTimeline(name);
+        steps.add(step);
+        return step;
+    }
+
+    /**
+     * Timeline of the step being executed, steps of a build run one after another
+     * @return timeline of the last started step, null when no step started yet
+     */
+    public synchronized StepTimeline getCurrentStep() {
+        return steps.isEmpty() ? null : steps.get(steps.size() - 1);
+    }
+
+    /**
+     * @return timelines of build steps in execution order
+     */
+    @Exported(inline = true)
+    public synchronized List<StepTimeline> getSteps() {
+        return new ArrayList<StepTimeline>(steps);
+    }
+
+    /**
+     * @return remote API of the timeline
+     */
+    public Api getApi() {
+        return new Api(this);
+    }
+
+    /**
+     * @return build the page is rendered for
+     */
+    public AbstractBuild getBuild() {
+        return Stapler.getCurrentRequest().findAncestorObject(AbstractBuild.class);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * A single entry of {@link StepTimeline}
+ * @author Alex Krupnov
+ */
+@ExportedBean(defaultVisibility = 2)
+public class TimelineEvent {
+    /**
+     * Kind of timeline event
+     */
+    public enum Kind {
+        MANIFEST_UPDATE,
+        LAUNCH,
+        COMMAND,
+        INSTANCE_STATUS,
+        WORKFLOW,
+        WORKFLOW_STEP,
+        EXPECTED_STATUS,
+        FAILED,
+        TIMEOUT,
+        ERROR,
+        ASYNC_RESULT
+    }
+
+    private final long offsetMillis;
+    private final long durationMillis;
+    private final Kind kind;
+    private final String description;
+
+    /**
+     * @param offsetMillis   time since step start
+     * @param durationMillis duration of the API call, 0 for transitions
+     * @param kind           kind of event
+     * @param description    human readable details
+     */
+    public TimelineEvent(long offsetMillis, long durationMillis, Kind kind, String description) {
+        this.offsetMillis = offsetMillis;
+        this.durationMillis = durationMillis;
+        this.kind = kind;
+        this.description = description;
+    }
+
+    /**
+     * @return time since step start in milliseconds
+     */
+    @Exported
+    public long getOffsetMillis() {
+        return offsetMillis;
+    }
+
+    /**
+     * @return duration of the API call in milliseconds, 0 for transitions
+     */
+    @Exported
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return kind of event
+     */
+    @Exported
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return human readable details
+     */
+    @Exported
+    public String getDescription() {
+        return description;
+    }
+}
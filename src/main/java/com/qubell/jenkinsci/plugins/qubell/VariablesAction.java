@@ -18,7 +18,9 @@ package com.qubell.jenkinsci.plugins.qubell;
 
 import hudson.model.Action;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,6 +29,10 @@ import java.util.Map;
  */
 public class VariablesAction implements Action {
     private Map<String, String> variables = new HashMap<String, String>();
+    /**
+     * Ids of instances launched during the build and not destroyed yet, null for builds saved before it was introduced
+     */
+    private List<String> launchedInstances = new ArrayList<String>();
 
     /**
      * {@inheritDoc}
@@ -65,6 +71,36 @@ public class VariablesAction implements Action {
         return variables.get(key);
     }
 
+    /**
+     * Remembers instance launched during the build, so it can be destroyed with the others
+     * @param instanceId id of launched instance
+     */
+    public synchronized void addLaunchedInstance(String instanceId) {
+        if (launchedInstances == null) {
+            launchedInstances = new ArrayList<String>();
+        }
+        if (!launchedInstances.contains(instanceId)) {
+            launchedInstances.add(instanceId);
+        }
+    }
+
+    /**
+     * Forgets destroyed instance
+     * @param instanceId id of destroyed instance
+     */
+    public synchronized void removeLaunchedInstance(String instanceId) {
+        if (launchedInstances != null) {
+            launchedInstances.remove(instanceId);
+        }
+    }
+
+    /**
+     * @return ids of instances launched during the build and not destroyed yet, in launch order
+     */
+    public synchronized List<String> getLaunchedInstances() {
+        return launchedInstances != null ? new ArrayList<String>(launchedInstances) : new ArrayList<String>();
+    }
+
     /**
      * {@inheritDoc}
      */
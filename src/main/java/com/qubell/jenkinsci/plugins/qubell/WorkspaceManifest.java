@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell;
+
+import com.qubell.services.Manifest;
+import hudson.FilePath;
+import hudson.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Manifest read from build workspace (either on master or slave) straight into the request body
+ * <p/>
+ * No temporary copy is made on master: the file is read once per upload attempt and its MD5 is computed
+ * while the content is sent, so the digest stored in {@link ManifestVersionCache} matches the bytes the API received.
+ *
+ * @author Alex Krupnov
+ */
+public class WorkspaceManifest extends Manifest {
+    private final FilePath file;
+    private volatile String uploadedDigest;
+
+    /**
+     * Initializes manifest with workspace file
+     * @param file manifest file
+     */
+    public WorkspaceManifest(FilePath file) {
+        this.file = file;
+    }
+
+    /**
+     * @return manifest file
+     */
+    public FilePath getFile() {
+        return file;
+    }
+
+    /**
+     * Reads the whole file, only needed when content is used outside of upload
+     * @return yaml manifest content
+     */
+    @Override
+    public String getContent() {
+        try {
+            return file.readToString();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read manifest " + file.getRemote(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Content is digested on the fly, see {@link #getUploadedDigest()}
+     */
+    @Override
+    public InputStream openStream() throws IOException {
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("MD5 is not available", e);
+        }
+
+        return new DigestInputStream(file.read(), md5) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!closed) {
+                    closed = true;
+                    uploadedDigest = Util.toHexString(md5.digest());
+                }
+            }
+        };
+    }
+
+    /**
+     * Digest of the file, computed where the file is, so content is not transferred to master
+     * @return MD5 of manifest file, see {@link ManifestVersionCache#getDigest(String)}
+     * @throws IOException when file could not be read
+     * @throws InterruptedException when operation is interrupted
+     */
+    public String getDigest() throws IOException, InterruptedException {
+        return file.digest();
+    }
+
+    /**
+     * @return MD5 of content sent by the last upload, null when it was not sent
+     */
+    public String getUploadedDigest() {
+        return uploadedDigest;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell;
+
+import hudson.XmlFile;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists a controller-wide store into an XML file under Jenkins root
+ * Stores are a cache of past builds, so I/O errors are logged and the store keeps working in memory
+ * @author Alex Krupnov
+ */
+final class XmlFileStore<T> {
+    private static final Logger LOGGER = Logger.getLogger(XmlFileStore.class.getName());
+
+    private final String fileName;
+    private final String description;
+    private final Class<T> type;
+
+    /**
+     * @param fileName    file name under Jenkins root
+     * @param description store description used in log messages
+     * @param type        store class
+     */
+    XmlFileStore(String fileName, String description, Class<T> type) {
+        this.fileName = fileName;
+        this.description = description;
+        this.type = type;
+    }
+
+    /**
+     * Reads the store
+     * @return stored object, null when the file does not exist or can't be read
+     */
+    T load() {
+        XmlFile file = getFile();
+        if (file != null && file.exists()) {
+            try {
+                return type.cast(file.read());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, String.format("Unable to load %s, starting empty", description), e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the store, callers hold the store lock
+     * @param store object to write
+     */
+    void save(T store) {
+        XmlFile file = getFile();
+        if (file == null) {
+            return;
+        }
+        try {
+            file.write(store);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Unable to save %s", description), e);
+        }
+    }
+
+    private XmlFile getFile() {
+        Jenkins jenkins = Jenkins.getInstance();
+        return jenkins != null ? new XmlFile(new File(jenkins.getRootDir(), fileName)) : null;
+    }
+}
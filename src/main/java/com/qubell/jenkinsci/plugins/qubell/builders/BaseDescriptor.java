@@ -75,6 +75,38 @@ public abstract class BaseDescriptor extends BuildStepDescriptor<Builder> {
         return FormValidation.ok();
     }
 
+    /**
+     * Validates min polling interval value: integer, greater then zero
+     *
+     * @param value string value of interval passed from form
+     * @return jenkins validation container, see {@link FormValidation}
+     */
+    public FormValidation doCheckMinPollingInterval(@QueryParameter String value) {
+        return checkPollingInterval(value);
+    }
+
+    /**
+     * Validates max polling interval value: integer, greater then zero
+     *
+     * @param value string value of interval passed from form
+     * @return jenkins validation container, see {@link FormValidation}
+     */
+    public FormValidation doCheckMaxPollingInterval(@QueryParameter String value) {
+        return checkPollingInterval(value);
+    }
+
+    private FormValidation checkPollingInterval(String value) {
+        try {
+            if (Integer.parseInt(value) <= 0) {
+                return FormValidation.error("Polling interval must be a positive integer value");
+            }
+        } catch (NumberFormatException nfe) {
+            return FormValidation.error("Polling interval must be a positive integer value");
+        }
+
+        return FormValidation.ok();
+    }
+
     public ListBoxModel doFillFailureReactionItems() {
         ListBoxModel items = new ListBoxModel();
 
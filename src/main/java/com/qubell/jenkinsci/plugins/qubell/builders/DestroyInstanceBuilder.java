@@ -29,13 +29,15 @@ import org.kohsuke.stapler.DataBoundConstructor;
 public class DestroyInstanceBuilder extends RunCommandBuilder {
 
     /**
-     * @param timeout         timeout string value coming from form
-     * @param instanceOptions pre-defined instance options see {@link #getInstanceId()}
-     * @param failureReaction a target build status which should be set when destroy fails
+     * @param timeout               timeout string value coming from form
+     * @param instanceOptions       pre-defined instance options see {@link #getInstanceId()}
+     * @param failureReaction       a target build status which should be set when destroy fails
+     * @param asyncExecutionOptions optional settings for asynchronous destroy wait
+     * @param pollingOptions        optional per-instance adaptive polling bounds
      */
     @DataBoundConstructor
-    public DestroyInstanceBuilder(String timeout, InstanceOptions instanceOptions, String failureReaction) {
-        super("destroy", "{}", timeout, instanceOptions, null, InstanceStatusCode.DESTROYED, failureReaction, null);
+    public DestroyInstanceBuilder(String timeout, InstanceOptions instanceOptions, String failureReaction, AsyncExecutionOptions asyncExecutionOptions, PollingOptions pollingOptions) {
+        super("destroy", "{}", timeout, instanceOptions, null, InstanceStatusCode.DESTROYED, failureReaction, asyncExecutionOptions, pollingOptions);
     }
 
     /**
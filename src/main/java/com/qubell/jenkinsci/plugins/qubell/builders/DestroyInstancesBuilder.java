@@ -0,0 +1,247 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell.builders;
+
+import com.qubell.jenkinsci.plugins.qubell.TimelineEvent;
+import com.qubell.services.Instance;
+import com.qubell.services.InstanceStatus;
+import com.qubell.services.InstanceStatusCode;
+import com.qubell.services.exceptions.InstanceBusyException;
+import com.qubell.services.exceptions.ResourceNotFoundException;
+import com.qubell.services.exceptions.ServiceUnavailableException;
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Result;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Destroys every instance launched during the build by {@link StartInstanceBuilder} or {@link StartInstancesBuilder}
+ * and not destroyed yet. Destroy commands are sent several at once and all instances are waited for by the shared
+ * status poller, so teardown takes about as long as the slowest instance instead of the sum.
+ *
+ * @author Alex Krupnov
+ */
+public class DestroyInstancesBuilder extends QubellBuilder {
+    /**
+     * Amount of destroy commands sent at once, when not configured
+     */
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private final int concurrency;
+
+    /**
+     * @param timeout         timeout string value coming from form
+     * @param concurrency     see {@link #getConcurrency()}
+     * @param failureReaction a target build status which should be set when destroy fails
+     * @param pollingOptions  optional per-instance adaptive polling bounds
+     */
+    @DataBoundConstructor
+    public DestroyInstancesBuilder(String timeout, String concurrency, String failureReaction, PollingOptions pollingOptions) {
+        super(timeout, InstanceStatusCode.DESTROYED, null, failureReaction, pollingOptions);
+        this.concurrency = StringUtils.isBlank(concurrency) ? DEFAULT_CONCURRENCY : Integer.parseInt(concurrency);
+    }
+
+    /**
+     * Maximum amount of destroy commands sent at once
+     *
+     * @return concurrency
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Performs a build with following steps
+     * <ol>
+     * <li>Gets ids of instances launched during the build</li>
+     * <li>Sends destroy command to every instance, retrying instances which are busy until timeout</li>
+     * <li>Waits for all instances to turn into Destroyed state</li>
+     * </ol>
+     *
+     * @param build    current build
+     * @param launcher build launcher
+     * @param listener build listener
+     * @return true of builder finished successfully, otherwise false
+     */
+    @Override
+    public boolean perform(AbstractBuild build, Launcher launcher, BuildListener listener) throws IOException, InterruptedException {
+        resolveParameterPlaceholders(build, listener);
+
+        PrintStream buildLog = listener.getLogger();
+        if (!validateConfiguration()) {
+            logMessage(buildLog, "Unable to proceed without configuration. Please check global settings page.");
+
+            build.setResult(Result.FAILURE);
+            return false;
+        }
+
+        List<Instance> instances = new ArrayList<Instance>();
+        for (String instanceId : getLaunchedInstances(build)) {
+            instances.add(new Instance(instanceId));
+        }
+        if (instances.isEmpty()) {
+            logMessage(buildLog, "No instances were launched during the build, nothing to destroy");
+            return true;
+        }
+
+        logMessage(buildLog, "Destroying %d instances, %d at once", instances.size(), concurrency);
+
+        List<Instance> destroying = new ArrayList<Instance>();
+        int failed;
+        try {
+            failed = sendDestroyCommands(build, buildLog, instances, destroying);
+        } catch (InterruptedException e) {
+            logMessage(buildLog, "Build interrupted");
+            build.setResult(Result.FAILURE);
+            return false;
+        }
+
+        if (!destroying.isEmpty()) {
+            Map<String, InstanceStatus> destroyed;
+            try {
+                destroyed = waitForInstanceStatuses(build, buildLog, destroying, destroying.size());
+            } catch (InterruptedException e) {
+                logMessage(buildLog, "Build interrupted");
+                build.setResult(Result.FAILURE);
+                return false;
+            }
+            for (String instanceId : destroyed.keySet()) {
+                untrackLaunchedInstance(build, instanceId);
+            }
+            failed += destroying.size() - destroyed.size();
+        }
+
+        if (failed > 0) {
+            logMessage(buildLog, "%d instances were not destroyed", failed);
+            Result failureReaction = Result.fromString(getFailureReaction());
+            build.setResult(failureReaction);
+            return failureReaction != Result.FAILURE;
+        }
+
+        return true;
+    }
+
+    /**
+     * Sends destroy command to every instance, several at once
+     * Busy instances are retried with polling interval until timeout, instances which no longer exist are considered destroyed
+     *
+     * @param destroying receives instances which accepted the command
+     * @return amount of instances which did not accept the command
+     */
+    private int sendDestroyCommands(AbstractBuild build, PrintStream buildLog, List<Instance> instances, List<Instance> destroying) throws InterruptedException {
+        long startedAt = System.currentTimeMillis();
+        long pausedMillis = 0;
+        int failed = 0;
+        List<Instance> pending = instances;
+
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            long commandsStartedAt = System.currentTimeMillis();
+            Map<String, Exception> errors = getServiceFacade(build).runCommands(pending, "destroy", new HashMap<String, Object>(), concurrency);
+
+            List<Instance> busy = new ArrayList<Instance>();
+            long retryAfterMillis = 0;
+            for (Instance instance : pending) {
+                Exception error = errors.get(instance.getId());
+                if (error == null) {
+                    getTimeline(build).addCall(TimelineEvent.Kind.COMMAND, String.format("destroy %s, attempt #%d", instance.getId(), attempt), commandsStartedAt);
+                    destroying.add(instance);
+                } else if (error instanceof ResourceNotFoundException) {
+                    logMessage(buildLog, "Instance %s no longer exists", instance.getId());
+                    untrackLaunchedInstance(build, instance.getId());
+                } else if (error instanceof InstanceBusyException) {
+                    busy.add(instance);
+                } else if (error instanceof ServiceUnavailableException) {
+                    // API outage does not count against the timeout
+                    retryAfterMillis = Math.max(retryAfterMillis, ((ServiceUnavailableException) error).getRetryAfterMillis());
+                    busy.add(instance);
+                } else {
+                    logMessage(buildLog, "Error when destroying instance %s: %s", instance.getId(), error.getMessage());
+                    getTimeline(build).addEvent(TimelineEvent.Kind.ERROR, String.format("%s: %s", instance.getId(), error.getMessage()));
+                    failed++;
+                }
+            }
+
+            if (busy.isEmpty()) {
+                break;
+            }
+            if (System.currentTimeMillis() - startedAt - pausedMillis >= timeout * 1000L) {
+                logMessage(buildLog, "Timeout exceeded, %d instances did not accept destroy command", busy.size());
+                failed += busy.size();
+                break;
+            }
+
+            logMessage(buildLog, "%d instances not ready to accept requests. Sleep #%d", busy.size(), attempt);
+            if (retryAfterMillis > 0) {
+                Thread.sleep(retryAfterMillis);
+                pausedMillis += retryAfterMillis;
+            } else {
+                Thread.sleep(getConfiguration().getStatusPollingInterval() * 1000L);
+            }
+            pending = busy;
+        }
+
+        return failed;
+    }
+
+    /**
+     * Descriptor for {@link DestroyInstancesBuilder}. Used as a singleton.
+     * The class is marked as public so that it can be accessed from views.
+     * See <tt>src/main/resources/com/qubell/jenkinsci/plugins/qubell/builders/DestroyInstancesBuilder/*.jelly</tt>
+     * for the actual HTML fragment for the configuration screen.
+     */
+    @Extension // This indicates to Jenkins that this is an implementation of an extension point.
+    public static final class DestroyInstancesDescriptor extends BaseDescriptor {
+        /**
+         * Validates concurrency: integer, greater then zero
+         *
+         * @param value string value passed from form
+         * @return jenkins validation container, see {@link FormValidation}
+         */
+        public FormValidation doCheckConcurrency(@QueryParameter String value)
+                throws IOException, ServletException {
+            try {
+                if (Integer.parseInt(value) <= 0) {
+                    return FormValidation.error("Concurrency must be a positive integer");
+                }
+            } catch (NumberFormatException nfe) {
+                return FormValidation.error("Concurrency must be a positive integer");
+            }
+
+            return FormValidation.ok();
+        }
+
+        /**
+         * This human readable builder name is used in the configuration screen.
+         */
+        public String getDisplayName() {
+            return "Qubell: Destroy All Instances of the Build";
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.jenkinsci.plugins.qubell.builders;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * A holder class to use together with optionalBlock Jelly construct
+ * Contains per-instance bounds for adaptive status polling
+ * @author Alex Krupnov
+ */
+public class PollingOptions {
+    private int minPollingInterval;
+    private int maxPollingInterval;
+
+    @DataBoundConstructor
+    public PollingOptions(int minPollingInterval, int maxPollingInterval) {
+        // Zero or negative bounds would make status polling spin
+        this.minPollingInterval = Math.max(1, minPollingInterval);
+        this.maxPollingInterval = Math.max(this.minPollingInterval, maxPollingInterval);
+    }
+
+    /**
+     * @return lower bound of polling interval in seconds
+     */
+    public int getMinPollingInterval() {
+        return minPollingInterval;
+    }
+
+    /**
+     * @return upper bound of polling interval in seconds
+     */
+    public int getMaxPollingInterval() {
+        return maxPollingInterval;
+    }
+}
@@ -17,13 +17,32 @@
 package com.qubell.jenkinsci.plugins.qubell.builders;
 
 import com.qubell.jenkinsci.plugins.qubell.Configuration;
+import com.qubell.jenkinsci.plugins.qubell.DurationHistory;
+import com.qubell.jenkinsci.plugins.qubell.DurationStats;
 import com.qubell.jenkinsci.plugins.qubell.JsonParser;
+import com.qubell.jenkinsci.plugins.qubell.RetryBudgetAction;
+import com.qubell.jenkinsci.plugins.qubell.StepTimeline;
+import com.qubell.jenkinsci.plugins.qubell.TimelineAction;
+import com.qubell.jenkinsci.plugins.qubell.TimelineEvent;
 import com.qubell.jenkinsci.plugins.qubell.VariablesAction;
 import com.qubell.services.*;
 import com.qubell.services.exceptions.InvalidCredentialsException;
 import com.qubell.services.exceptions.NotAuthorizedException;
 import com.qubell.services.exceptions.QubellServiceException;
 import com.qubell.services.exceptions.ResourceNotFoundException;
+import com.qubell.services.exceptions.ServiceUnavailableException;
+import com.qubell.services.polling.AdaptivePollingSchedule;
+import com.qubell.services.polling.FixedPollingSchedule;
+import com.qubell.services.polling.HistoricalPollingSchedule;
+import com.qubell.services.polling.InstanceStatusPoller;
+import com.qubell.services.polling.MultiStatusQueue;
+import com.qubell.services.polling.PollingSchedule;
+import com.qubell.services.polling.StatusQueue;
+import com.qubell.services.polling.StatusSubscription;
+import com.qubell.services.polling.StatusWatcher;
+import com.qubell.services.polling.WatchCallback;
+import com.qubell.services.polling.WatchResult;
+import com.qubell.services.ws.RetryBudget;
 import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.Util;
@@ -32,12 +51,16 @@ import hudson.slaves.SlaveComputer;
 import hudson.tasks.Builder;
 import hudson.util.VariableResolver;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.time.StopWatch;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -51,6 +74,11 @@ public abstract class QubellBuilder extends Builder {
     public static final String ASYNC_INSTANCE_ID_KEY = "instanceId";
     public static final String ASYNC_EXPECTED_STATUS_KEY = "expectedStatus";
     public static final String ASYNC_OUTPUT_PATH_KEY = "outputFilePath";
+    public static final String ASYNC_WATCH_KEY = "watchKey";
+    /**
+     * Ratio of the longest to regular polling interval before expected completion, when fixed polling is used
+     */
+    static final int SPARSE_POLLING_FACTOR = 4;
     /**
      * Defines which status has to be set when failure occurs
      */
@@ -64,6 +92,10 @@ public abstract class QubellBuilder extends Builder {
      * Key value for storing instance id
      */
     protected static String INSTANCE_ID_KEY = "QUBELL_INSTANCE_ID";
+    /**
+     * Key value for storing comma separated ids of all instances launched by a step, see {@link StartInstancesBuilder}
+     */
+    protected static String INSTANCE_IDS_KEY = "QUBELL_INSTANCE_IDS";
 
     /**
      * {@link InstanceStatusCode}, expected by builder for successful finish
@@ -82,6 +114,11 @@ public abstract class QubellBuilder extends Builder {
 
     private String outputFilePathResolved;
 
+    /**
+     * Optional per-instance adaptive polling bounds
+     */
+    private final PollingOptions pollingOptions;
+
     /**
      * Inits builder common properties
      *
@@ -91,10 +128,24 @@ public abstract class QubellBuilder extends Builder {
      * @param failureReaction a target build status which should be set when instnace returns failure status
      */
     public QubellBuilder(String timeout, InstanceStatusCode expectedStatus, String outputFilePath, String failureReaction) {
+        this(timeout, expectedStatus, outputFilePath, failureReaction, null);
+    }
+
+    /**
+     * Inits builder common properties
+     *
+     * @param timeout         string (injected from UI value of timeout)
+     * @param expectedStatus  the {@link com.qubell.services.InstanceStatusCode}, expected by builder for successful finish
+     * @param outputFilePath  path to builder output file
+     * @param failureReaction a target build status which should be set when instnace returns failure status
+     * @param pollingOptions  optional per-instance adaptive polling bounds
+     */
+    public QubellBuilder(String timeout, InstanceStatusCode expectedStatus, String outputFilePath, String failureReaction, PollingOptions pollingOptions) {
         this.expectedStatus = expectedStatus;
         this.timeout = Integer.parseInt(timeout);
         this.outputFilePath = outputFilePath;
         this.failureReaction = Result.fromString(failureReaction != null ? failureReaction : Result.FAILURE.toString());
+        this.pollingOptions = pollingOptions;
     }
 
     /**
@@ -108,11 +159,13 @@ public abstract class QubellBuilder extends Builder {
 
     /**
      * Qubell services facade for builders disposal
+     * Facade spends API retries left for the build, see {@link RetryBudgetAction}
      *
+     * @param build current build
      * @return new instance of facade
      */
-    protected QubellFacade getServiceFacade() {
-        return new QubellFacadeImpl(getConfiguration());
+    protected QubellFacade getServiceFacade(AbstractBuild build) {
+        return new QubellFacadeImpl(getConfiguration(), getRetryBudget(build));
     }
 
     /**
@@ -163,78 +216,382 @@ public abstract class QubellBuilder extends Builder {
         variablesAction.addVariable(key, value);
     }
 
+    /**
+     * Remembers instance launched by the step, see {@link DestroyInstancesBuilder}
+     *
+     * @param build    current build
+     * @param instance launched instance
+     */
+    protected void trackLaunchedInstance(AbstractBuild build, Instance instance) {
+        getVariableAction(build).addLaunchedInstance(instance.getId());
+    }
+
+    /**
+     * Forgets destroyed instance, so it is not destroyed again by {@link DestroyInstancesBuilder}
+     *
+     * @param build      current build
+     * @param instanceId id of destroyed instance
+     */
+    protected void untrackLaunchedInstance(AbstractBuild build, String instanceId) {
+        getVariableAction(build).removeLaunchedInstance(instanceId);
+    }
+
+    /**
+     * Ids of instances launched during the build and not destroyed yet
+     *
+     * @param build current build
+     * @return ids in launch order
+     */
+    protected List<String> getLaunchedInstances(AbstractBuild build) {
+        return getVariableAction(build).getLaunchedInstances();
+    }
+
+    private RetryBudget getRetryBudget(AbstractBuild build) {
+        synchronized (build) {
+            RetryBudgetAction retryBudgetAction = build.getAction(RetryBudgetAction.class);
+            if (retryBudgetAction == null) {
+                retryBudgetAction = new RetryBudgetAction();
+                build.addAction(retryBudgetAction);
+            }
+            return retryBudgetAction.getRetryBudget(getConfiguration().getBuildRetryBudget());
+        }
+    }
+
+    private StepTimeline startTimeline(AbstractBuild build) {
+        synchronized (build) {
+            TimelineAction timelineAction = build.getAction(TimelineAction.class);
+            if (timelineAction == null) {
+                timelineAction = new TimelineAction();
+                build.addAction(timelineAction);
+            }
+            StepTimeline stepTimeline = timelineAction.startStep(getDescriptor().getDisplayName());
+            stepTimeline.setExpectedStatus(expectedStatus);
+            return stepTimeline;
+        }
+    }
+
+    /**
+     * Timeline of current build step, API calls made by the step are recorded into it
+     * Looked up from the build, since builder instance is shared by concurrent builds
+     *
+     * @param build current build
+     * @return step timeline
+     */
+    protected StepTimeline getTimeline(AbstractBuild build) {
+        synchronized (build) {
+            TimelineAction timelineAction = build.getAction(TimelineAction.class);
+            StepTimeline stepTimeline = timelineAction != null ? timelineAction.getCurrentStep() : null;
+            return stepTimeline != null ? stepTimeline : startTimeline(build);
+        }
+    }
+
     private VariablesAction getVariableAction(AbstractBuild build) {
-        VariablesAction variablesAction = build.getAction(VariablesAction.class);
-        if (variablesAction == null) {
-            variablesAction = new VariablesAction();
-            build.addAction(variablesAction);
+        synchronized (build) {
+            VariablesAction variablesAction = build.getAction(VariablesAction.class);
+            if (variablesAction == null) {
+                variablesAction = new VariablesAction();
+                build.addAction(variablesAction);
+            }
+            return variablesAction;
         }
-        return variablesAction;
     }
 
     /**
      * Waits for instance status to be equal to {@link #expectedStatus} with given {@link #timeout}
      *
+     * @param build    current build
      * @param buildLog build log
      * @param instance instance to be queries
      * @return true if instance gained expected status, false if timeout exceed before
      * @throws InvalidCredentialsException when credentials in configuration are invalid
      * @throws InterruptedException        when wait was interrupted
      */
-    private boolean waitForInstanceStatus(PrintStream buildLog, Instance instance) throws QubellServiceException, InterruptedException {
+    private boolean waitForInstanceStatus(AbstractBuild build, PrintStream buildLog, Instance instance) throws QubellServiceException, InterruptedException {
         logMessage(buildLog, "Waiting for instance status %s with timeout of %d seconds", expectedStatus, timeout);
 
-        StopWatch sw = new StopWatch();
-        sw.start();
-
         int attempt = 0;
         int similarAttemptsCount = 0;
 
         InstanceStatus previousStatus = null;
 
-        while (true) {
-            attempt++;
+        final StepTimeline stepTimeline = getTimeline(build);
+        stepTimeline.setInstanceId(instance.getId());
+        stepTimeline.setExpectedStatus(expectedStatus);
+        long waitStartedAt = System.currentTimeMillis();
 
-            InstanceStatus status;
-            try {
-                status = getServiceFacade().getStatus(instance);
-            } catch (QubellServiceException qse) {
-                // Lets report similar attempts (if any) when something went wrong
-                reportSimilarAttempts(buildLog, similarAttemptsCount);
-                throw qse;
-            }
+        //Statuses are fetched by shared poller, so builds waiting on the same instance do not duplicate requests
+        StatusQueue statusQueue = new StatusQueue();
+        HistoricalPollingSchedule schedule = createHistoricalPollingSchedule();
+        StatusSubscription subscription = InstanceStatusPoller.getInstance().subscribe(
+                instance, getServiceFacade(build), schedule, timeout * 1000L, statusQueue);
+        String historyKey = null;
+        int appliedTimeout = timeout;
 
-            if (status.equals(previousStatus)) {
-                similarAttemptsCount++;
-            } else {
-                reportSimilarAttempts(buildLog, similarAttemptsCount);
-                similarAttemptsCount = 0;
+        try {
+            while (true) {
+                InstanceStatus status;
+                try {
+                    // Subscription deadline is used instead of own stopwatch, since it is paused during API outages
+                    status = statusQueue.next(Math.max(subscription.getDeadline() - System.currentTimeMillis(), 0));
+                } catch (QubellServiceException qse) {
+                    // Lets report similar attempts (if any) when something went wrong
+                    reportSimilarAttempts(buildLog, similarAttemptsCount);
+                    stepTimeline.addEvent(TimelineEvent.Kind.ERROR, qse.getMessage());
+                    throw qse;
+                }
 
-                reportInstanceStatus(buildLog, status, attempt);
-            }
+                if (status == null && subscription.getDeadline() > System.currentTimeMillis()) {
+                    continue;
+                }
+                if (status == null) {
+                    reportSimilarAttempts(buildLog, similarAttemptsCount);
+                    logMessage(buildLog, "Instance did not return expected status (%s) within given timeout of %s seconds", expectedStatus, appliedTimeout);
+                    stepTimeline.addEvent(TimelineEvent.Kind.TIMEOUT, String.format("%d seconds", appliedTimeout));
 
-            InstanceStatusCode instanceStatusCode = status.getStatus();
+                    return false;
+                }
 
-            if (instanceStatusCode == expectedStatus) {
-                return true;
-            } else if (instanceStatusCode == InstanceStatusCode.FAILED) {
-                reportSimilarAttempts(buildLog, similarAttemptsCount);
-                //In case Failed status is not actually what we expect, considering it an issue
-                logMessage(buildLog, "Instance returned Failed status, aborting further status wait...");
-                return false;
+                attempt++;
+                stepTimeline.onStatus(status);
+                if (historyKey == null) {
+                    historyKey = getHistoryKey(status, getWorkflowName());
+                    appliedTimeout = applyDurationHistory(buildLog, historyKey, schedule, subscription, waitStartedAt);
+                }
+
+                if (status.equals(previousStatus)) {
+                    similarAttemptsCount++;
+                } else {
+                    reportSimilarAttempts(buildLog, similarAttemptsCount);
+                    similarAttemptsCount = 0;
+
+                    reportInstanceStatus(buildLog, status, attempt);
+                }
+
+                InstanceStatusCode instanceStatusCode = status.getStatus();
+
+                if (instanceStatusCode == expectedStatus) {
+                    if (historyKey != null) {
+                        DurationHistory.get().record(historyKey, System.currentTimeMillis() - waitStartedAt);
+                    }
+                    return true;
+                } else if (instanceStatusCode == InstanceStatusCode.FAILED) {
+                    reportSimilarAttempts(buildLog, similarAttemptsCount);
+                    //In case Failed status is not actually what we expect, considering it an issue
+                    logMessage(buildLog, "Instance returned Failed status, aborting further status wait...");
+                    stepTimeline.addEvent(TimelineEvent.Kind.FAILED, status.getErrorMessage());
+                    return false;
+                }
+
+                previousStatus = status;
             }
+        } finally {
+            subscription.unsubscribe();
+            stepTimeline.onWaitFinished(subscription.getPollCount(), System.currentTimeMillis() - waitStartedAt, subscription.getApiMillis());
+        }
+    }
 
-            previousStatus = status;
+    /**
+     * Waits for several instances to reach {@link #expectedStatus}, each one within {@link #timeout}
+     * Instances are polled by the shared {@link InstanceStatusPoller}, so their statuses are fetched by bulk calls.
+     * Wait finishes once {@code required} instances reached the status, or when too many of them failed, timed out
+     * or could not be polled for that to happen
+     *
+     * @param build     current build
+     * @param buildLog  build log
+     * @param instances instances to wait for
+     * @param required  amount of instances which have to reach the status
+     * @return statuses of instances which reached expected status, in order they reached it;
+     * null status stands for a destroyed instance which is no longer known to the API
+     * @throws InterruptedException when wait was interrupted
+     */
+    protected Map<String, InstanceStatus> waitForInstanceStatuses(AbstractBuild build, PrintStream buildLog, List<Instance> instances, int required) throws InterruptedException {
+        logMessage(buildLog, "Waiting for %d of %d instances to reach status %s with timeout of %d seconds", required, instances.size(), expectedStatus, timeout);
+
+        final StepTimeline stepTimeline = getTimeline(build);
+        stepTimeline.setExpectedStatus(expectedStatus);
+        long waitStartedAt = System.currentTimeMillis();
+
+        MultiStatusQueue statusQueue = new MultiStatusQueue();
+        List<StatusSubscription> subscriptions = new ArrayList<StatusSubscription>();
+        Map<String, StatusSubscription> pending = new LinkedHashMap<String, StatusSubscription>();
+        for (Instance instance : instances) {
+            StatusSubscription subscription = InstanceStatusPoller.getInstance().subscribe(
+                    instance, getServiceFacade(build), createPollingSchedule(), timeout * 1000L, statusQueue.listenerFor(instance));
+            subscriptions.add(subscription);
+            pending.put(instance.getId(), subscription);
+        }
 
-            Thread.sleep(getConfiguration().getStatusPollingInterval() * 1000);
+        Map<String, InstanceStatus> reached = new LinkedHashMap<String, InstanceStatus>();
+        Map<String, InstanceStatusCode> lastStatuses = new HashMap<String, InstanceStatusCode>();
+        String workflowName = getWorkflowName();
+        try {
+            while (reached.size() < required) {
+                long now = System.currentTimeMillis();
+                long nearestDeadline = Long.MAX_VALUE;
+                Iterator<Map.Entry<String, StatusSubscription>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, StatusSubscription> entry = iterator.next();
+                    // Subscription deadlines are used instead of own stopwatch, since they are paused during API outages
+                    if (entry.getValue().getDeadline() <= now) {
+                        logMessage(buildLog, "Instance %s did not return expected status (%s) within given timeout of %s seconds", entry.getKey(), expectedStatus, timeout);
+                        stepTimeline.addEvent(TimelineEvent.Kind.TIMEOUT, String.format("%s: %d seconds", entry.getKey(), timeout));
+                        entry.getValue().unsubscribe();
+                        iterator.remove();
+                    } else {
+                        nearestDeadline = Math.min(nearestDeadline, entry.getValue().getDeadline());
+                    }
+                }
+                if (reached.size() + pending.size() < required) {
+                    break;
+                }
 
-            if (sw.getTime() >= timeout * 1000) {
-                reportSimilarAttempts(buildLog, similarAttemptsCount);
-                logMessage(buildLog, "Instance did not return expected status (%s) within given timeout of %s seconds", expectedStatus, timeout);
+                MultiStatusQueue.Event event = statusQueue.next(nearestDeadline - now);
+                if (event == null || !pending.containsKey(event.getInstance().getId())) {
+                    continue;
+                }
 
-                return false;
+                String instanceId = event.getInstance().getId();
+                if (expectedStatus == InstanceStatusCode.DESTROYED && event.getError() instanceof ResourceNotFoundException) {
+                    // Destroyed instance may disappear from the API before its status is seen
+                    logMessage(buildLog, "Instance %s no longer exists", instanceId);
+                    stepTimeline.addEvent(TimelineEvent.Kind.EXPECTED_STATUS, instanceId);
+                    reached.put(instanceId, null);
+                    pending.remove(instanceId).unsubscribe();
+                    continue;
+                }
+                if (event.getError() != null) {
+                    logMessage(buildLog, "Error when getting status of instance %s: %s", instanceId, event.getError().getMessage());
+                    stepTimeline.addEvent(TimelineEvent.Kind.ERROR, String.format("%s: %s", instanceId, event.getError().getMessage()));
+                    pending.remove(instanceId).unsubscribe();
+                    continue;
+                }
+
+                InstanceStatus status = event.getStatus();
+                InstanceStatusCode instanceStatusCode = status.getStatus();
+                if (instanceStatusCode != lastStatuses.put(instanceId, instanceStatusCode)) {
+                    logMessage(buildLog, "Instance %s status %s", instanceId, instanceStatusCode);
+                    stepTimeline.addEvent(TimelineEvent.Kind.INSTANCE_STATUS, String.format("%s: %s", instanceId, instanceStatusCode));
+                }
+
+                if (instanceStatusCode == expectedStatus) {
+                    stepTimeline.addEvent(TimelineEvent.Kind.EXPECTED_STATUS, instanceId);
+                    String historyKey = getHistoryKey(status, workflowName);
+                    if (historyKey != null) {
+                        DurationHistory.get().record(historyKey, System.currentTimeMillis() - waitStartedAt);
+                    }
+                    reached.put(instanceId, status);
+                    pending.remove(instanceId).unsubscribe();
+                } else if (instanceStatusCode == InstanceStatusCode.FAILED) {
+                    logMessage(buildLog, "Instance %s returned Failed status %s", instanceId, StringUtils.defaultString(status.getErrorMessage()));
+                    stepTimeline.addEvent(TimelineEvent.Kind.FAILED, String.format("%s: %s", instanceId, status.getErrorMessage()));
+                    pending.remove(instanceId).unsubscribe();
+                }
+            }
+        } finally {
+            // Instances are polled together, so the busiest subscription stands for the whole wait
+            int pollCount = 0;
+            long apiMillis = 0;
+            for (StatusSubscription subscription : subscriptions) {
+                subscription.unsubscribe();
+                pollCount = Math.max(pollCount, subscription.getPollCount());
+                apiMillis = Math.max(apiMillis, subscription.getApiMillis());
             }
+            stepTimeline.onWaitFinished(pollCount, System.currentTimeMillis() - waitStartedAt, apiMillis);
         }
+
+        logMessage(buildLog, "%d of %d instances reached status %s, %d required", reached.size(), instances.size(), expectedStatus, required);
+        return reached;
+    }
+
+    /**
+     * Uses durations of previous runs, when enough of them were recorded: polls densely around expected completion
+     * and, when enabled globally, replaces the timeout with the suggested one
+     *
+     * @return timeout in seconds the wait is bound by after history is applied
+     */
+    private int applyDurationHistory(PrintStream buildLog, String historyKey, HistoricalPollingSchedule schedule,
+                                     StatusSubscription subscription, long waitStartedAt) {
+        DurationStats stats = DurationHistory.get().getStats(historyKey);
+        if (stats == null) {
+            return timeout;
+        }
+
+        long suggestedTimeout = DurationHistory.getSuggestedTimeout(stats);
+        logMessage(buildLog, "%d previous runs took %d seconds (median), %d seconds (95th percentile), suggested timeout is %d seconds",
+                stats.getCount(), stats.getPercentile(50) / 1000, stats.getPercentile(95) / 1000, suggestedTimeout / 1000);
+
+        schedule.setExpectedCompletion(waitStartedAt + stats.getPercentile(10), waitStartedAt + stats.getPercentile(95));
+
+        if (getConfiguration().isHistoricalTimeouts()) {
+            logMessage(buildLog, "Applying suggested timeout of %d seconds", suggestedTimeout / 1000);
+            // Keeps the time deadline was moved forward during API outages
+            subscription.setDeadline(subscription.getDeadline() - timeout * 1000L + suggestedTimeout);
+            return (int) (suggestedTimeout / 1000);
+        }
+        return timeout;
+    }
+
+    /**
+     * Key of {@link DurationHistory} for the status: application, workflow and environment of the instance
+     *
+     * @param status   instance status
+     * @param workflow workflow started by the builder
+     * @return key or null when application or workflow is unknown
+     */
+    private String getHistoryKey(InstanceStatus status, String workflow) {
+        return DurationHistory.getKey(
+                status.getApplication() != null ? status.getApplication().getId() : null,
+                workflow,
+                status.getEnvironment() != null ? status.getEnvironment().getId() : null);
+    }
+
+    /**
+     * Name of the workflow started by the builder, used to look up durations of previous runs
+     *
+     * @return workflow name, null when builder does not start a workflow itself and its wait is not measured
+     */
+    protected String getWorkflowName() {
+        return null;
+    }
+
+    /**
+     * Wraps polling schedule of the builder, so polls can be concentrated around completion time of previous runs
+     *
+     * @return new schedule instance
+     */
+    protected HistoricalPollingSchedule createHistoricalPollingSchedule() {
+        Configuration configuration = getConfiguration();
+
+        long denseInterval;
+        long sparseInterval;
+        if (pollingOptions != null) {
+            denseInterval = pollingOptions.getMinPollingInterval() * 1000L;
+            sparseInterval = pollingOptions.getMaxPollingInterval() * 1000L;
+        } else if (configuration.isAdaptivePolling()) {
+            denseInterval = configuration.getMinPollingInterval() * 1000L;
+            sparseInterval = configuration.getMaxPollingInterval() * 1000L;
+        } else {
+            denseInterval = configuration.getStatusPollingInterval() * 1000L;
+            sparseInterval = denseInterval * SPARSE_POLLING_FACTOR;
+        }
+        return new HistoricalPollingSchedule(createPollingSchedule(), denseInterval, sparseInterval);
+    }
+
+    /**
+     * Creates polling schedule for status wait: adaptive, when builder or global configuration defines it, otherwise fixed
+     *
+     * @return new schedule instance
+     */
+    protected PollingSchedule createPollingSchedule() {
+        Configuration configuration = getConfiguration();
+
+        if (pollingOptions != null) {
+            return new AdaptivePollingSchedule(pollingOptions.getMinPollingInterval() * 1000L, pollingOptions.getMaxPollingInterval() * 1000L);
+        }
+        if (configuration.isAdaptivePolling()) {
+            return new AdaptivePollingSchedule(configuration.getMinPollingInterval() * 1000L, configuration.getMaxPollingInterval() * 1000L);
+        }
+        return new FixedPollingSchedule(configuration.getStatusPollingInterval() * 1000L);
     }
 
     private void reportSimilarAttempts(PrintStream buildLog, int similarAttemptsCount) {
@@ -307,6 +664,15 @@ public abstract class QubellBuilder extends Builder {
         return failureReaction.toString();
     }
 
+    /**
+     * Optional per-instance adaptive polling bounds
+     *
+     * @return polling options or null
+     */
+    public PollingOptions getPollingOptions() {
+        return pollingOptions;
+    }
+
     public String isSelectedFailureReason(String candidate) {
         return candidate.equals(getFailureReaction()) ? "selected" : "";
     }
@@ -323,12 +689,15 @@ public abstract class QubellBuilder extends Builder {
      */
     protected boolean waitForExpectedStatus(AbstractBuild build, PrintStream buildLog, Instance instance) {
         try {
-            if (!waitForInstanceStatus(buildLog, instance)) {
+            if (!waitForInstanceStatus(build, buildLog, instance)) {
 
                 build.setResult(failureReaction);
 
                 return failureReaction != Result.FAILURE;
             } else {
+                if (expectedStatus == InstanceStatusCode.DESTROYED) {
+                    untrackLaunchedInstance(build, instance.getId());
+                }
                 //Since return values not always getting populated instantly, adding an explicit wait here
                 Thread.sleep(2000);
                 saveReturnValues(build, buildLog, instance);
@@ -349,6 +718,116 @@ public abstract class QubellBuilder extends Builder {
         return true;
     }
 
+    /**
+     * Hands status wait over to controller-side {@link StatusWatcher} and saves job information for {@link ResultWaitBuilder}
+     * Build step finishes immediately, the watcher only keeps the result, which is applied to the build and saved
+     * by {@link ResultWaitBuilder} on its own executor
+     *
+     * @param build    current build
+     * @param buildLog build log
+     * @param instance instance to watch
+     * @param jobId    resolved identifier of the job, used as job file path
+     * @return true when job was handed over
+     * @throws IOException when job file can't be saved
+     */
+    protected boolean handOffToWatcher(AbstractBuild build, PrintStream buildLog, Instance instance, String jobId) throws IOException {
+        String watchKey = String.format("%s#%d/%s", build.getParent().getFullName(), build.getNumber(), jobId);
+        final String workflowName = getWorkflowName();
+        getTimeline(build).setInstanceId(instance.getId());
+
+        logMessage(buildLog, "Job configured to be ran asynchronously, saving instance id and expected status for job id %s", jobId);
+        Map<String, Object> asyncData = new HashMap<String, Object>();
+        asyncData.put(ASYNC_INSTANCE_ID_KEY, instance.getId());
+        asyncData.put(ASYNC_EXPECTED_STATUS_KEY, expectedStatus);
+        asyncData.put(ASYNC_OUTPUT_PATH_KEY, getOutputFilePath());
+        asyncData.put(ASYNC_WATCH_KEY, watchKey);
+
+        saveFileToWorkspace(build, buildLog, JsonParser.serialize(asyncData), jobId);
+
+        StatusWatcher.getInstance().watch(watchKey, instance, getServiceFacade(build), createPollingSchedule(), expectedStatus,
+                timeout * 1000L, new WatchCallback() {
+            // Build may be finished by now, so neither its log nor its workspace are touched here
+            public void onCompleted(WatchResult result) {
+                if (result.getOutcome() != WatchResult.Outcome.REACHED || result.getLastStatus() == null) {
+                    return;
+                }
+                String historyKey = getHistoryKey(result.getLastStatus(), workflowName);
+                if (historyKey != null) {
+                    DurationHistory.get().record(historyKey, result.getDurationMillis());
+                }
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * Applies result of asynchronous wait to the build, the same way as {@link #waitForExpectedStatus(hudson.model.AbstractBuild, java.io.PrintStream, com.qubell.services.Instance)} does
+     * Return values are saved here, on the executor of the build step, once expected status was reached
+     *
+     * @param build    current build
+     * @param buildLog build log
+     * @param instance watched instance
+     * @param result   result of the wait, null when wait did not complete
+     * @return true if expected status reached, otherwise false
+     */
+    protected boolean applyWatchResult(AbstractBuild build, PrintStream buildLog, Instance instance, WatchResult result) {
+        if (result == null) {
+            logMessage(buildLog, "Instance did not return expected status (%s) within given timeout of %s seconds", expectedStatus, timeout);
+            build.setResult(failureReaction);
+            return failureReaction != Result.FAILURE;
+        }
+
+        logMessage(buildLog, "Async job completed: %s after %d seconds", result.getOutcome(), result.getDurationMillis() / 1000);
+        StepTimeline stepTimeline = getTimeline(build);
+        stepTimeline.setInstanceId(instance.getId());
+        stepTimeline.addEvent(TimelineEvent.Kind.ASYNC_RESULT, String.valueOf(result.getOutcome()));
+        if (result.getLastStatus() != null) {
+            reportInstanceStatus(buildLog, result.getLastStatus(), 1);
+        }
+
+        switch (result.getOutcome()) {
+            case REACHED:
+                return saveWatchedReturnValues(build, buildLog, instance);
+            case ERROR:
+                logMessage(buildLog, "Error when getting instance status: %s", result.getErrorMessage());
+                build.setResult(Result.FAILURE);
+                return false;
+            case FAILED:
+                logMessage(buildLog, "Instance returned Failed status");
+                break;
+            default:
+                logMessage(buildLog, "Instance did not return expected status (%s) within given timeout", expectedStatus);
+        }
+
+        build.setResult(failureReaction);
+        return failureReaction != Result.FAILURE;
+    }
+
+    private boolean saveWatchedReturnValues(AbstractBuild build, PrintStream buildLog, Instance instance) {
+        try {
+            if (expectedStatus == InstanceStatusCode.DESTROYED) {
+                untrackLaunchedInstance(build, instance.getId());
+            }
+            //Since return values not always getting populated instantly, adding an explicit wait here
+            Thread.sleep(2000);
+            saveReturnValues(build, buildLog, instance);
+        } catch (QubellServiceException e) {
+            logMessage(buildLog, "Error when getting instance status: %s", e.getMessage());
+            build.setResult(Result.FAILURE);
+            return false;
+        } catch (InterruptedException e) {
+            logMessage(buildLog, "Build interrupted");
+            build.setResult(Result.FAILURE);
+            return false;
+        } catch (IOException e) {
+            build.setResult(Result.FAILURE);
+            return false;
+        }
+
+        return true;
+    }
+
     /**
      * Saves instance return values into container accessible by further builds, see {@link #saveBuildVariable(hudson.model.AbstractBuild, String, String, java.io.PrintStream)}
      * see {@link VariablesAction}
@@ -358,7 +837,7 @@ public abstract class QubellBuilder extends Builder {
      * @param instance a qubell instance to be queried for status
      * @throws InvalidCredentialsException when configuration contains invalid credentials
      */
-    protected void saveReturnValues(AbstractBuild build, PrintStream buildLog, Instance instance) throws InvalidCredentialsException, IOException, ResourceNotFoundException, NotAuthorizedException {
+    protected void saveReturnValues(AbstractBuild build, PrintStream buildLog, Instance instance) throws InvalidCredentialsException, IOException, ResourceNotFoundException, NotAuthorizedException, ServiceUnavailableException {
         if (StringUtils.isEmpty(outputFilePathResolved)) {
             logMessage(buildLog, "Output file is not specified, ignoring variables save");
             return;
@@ -366,22 +845,59 @@ public abstract class QubellBuilder extends Builder {
 
         logMessage(buildLog, "Saving output data to file %s", outputFilePathResolved);
 
-        InstanceStatus status = getServiceFacade().getStatus(instance);
+        InstanceStatus status = getServiceFacade(build).getStatus(instance);
         Map<String, Object> returnValues = status.getReturnValues();
+        if (returnValues != null && returnValues.size() > 0) {
+            logMessage(buildLog, "Saving %d return values", returnValues.size());
+        }
+
+        String outputContents = JsonParser.serialize(getOutputData(status));
 
+        saveFileToWorkspace(build, buildLog, outputContents, outputFilePathResolved);
+    }
+
+    /**
+     * Saves return values of several instances into output file, as a list with an entry per instance
+     * Statuses are fetched by a single bulk call
+     *
+     * @param build     current build
+     * @param buildLog  build log
+     * @param instances qubell instances to be queried for status
+     * @throws InvalidCredentialsException when configuration contains invalid credentials
+     */
+    protected void saveReturnValues(AbstractBuild build, PrintStream buildLog, Collection<Instance> instances) throws InvalidCredentialsException, IOException, NotAuthorizedException, ServiceUnavailableException {
+        if (StringUtils.isEmpty(outputFilePathResolved)) {
+            logMessage(buildLog, "Output file is not specified, ignoring variables save");
+            return;
+        }
+
+        logMessage(buildLog, "Saving output data of %d instances to file %s", instances.size(), outputFilePathResolved);
+
+        BatchResult<InstanceStatus> statuses = getServiceFacade(build).getStatuses(instances);
+        List<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
+        for (Instance instance : instances) {
+            InstanceStatus status = statuses.get(instance.getId());
+            if (status != null) {
+                results.add(getOutputData(status));
+            } else if (statuses.getError(instance.getId()) != null) {
+                logMessage(buildLog, "Unable to get return values of instance %s: %s", instance.getId(), statuses.getError(instance.getId()).getMessage());
+            }
+        }
+
+        saveFileToWorkspace(build, buildLog, JsonParser.serialize(results), outputFilePathResolved);
+    }
+
+    private Map<String, Object> getOutputData(InstanceStatus status) {
         Map<String, Object> resultMap = new HashMap<String, Object>();
         resultMap.put("instanceId", status.getInstance().getId());
         resultMap.put("applicationId", status.getApplication().getId());
         resultMap.put("status", status.getStatus());
 
+        Map<String, Object> returnValues = status.getReturnValues();
         if (returnValues != null && returnValues.size() > 0) {
-            logMessage(buildLog, "Saving %d return values", returnValues.size());
             resultMap.put("returnValues", returnValues);
         }
-
-        String outputContents = JsonParser.serialize(resultMap);
-
-        saveFileToWorkspace(build, buildLog, outputContents, outputFilePathResolved);
+        return resultMap;
     }
 
     /**
@@ -471,5 +987,6 @@ public abstract class QubellBuilder extends Builder {
 
     protected void resolveParameterPlaceholders(AbstractBuild build, BuildListener listener) throws IOException, InterruptedException {
         this.outputFilePathResolved = resolveVariableMacros(build, listener, this.outputFilePath);
+        startTimeline(build);
     }
 }
@@ -19,17 +19,20 @@ package com.qubell.jenkinsci.plugins.qubell.builders;
 import com.qubell.jenkinsci.plugins.qubell.JsonParser;
 import com.qubell.services.Instance;
 import com.qubell.services.InstanceStatusCode;
+import com.qubell.services.polling.StatusWatcher;
 import hudson.Extension;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
 import hudson.model.Result;
 import hudson.util.FormValidation;
+import org.apache.commons.io.IOUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
 
 import javax.servlet.ServletException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.Map;
 
@@ -44,8 +47,8 @@ public class ResultWaitBuilder extends QubellBuilder {
     private String jobIdResolved;
 
     @DataBoundConstructor
-    public ResultWaitBuilder(String jobId, String timeout, String failureReaction) {
-        super(timeout, InstanceStatusCode.RUNNING, null, failureReaction);
+    public ResultWaitBuilder(String jobId, String timeout, String failureReaction, PollingOptions pollingOptions) {
+        super(timeout, InstanceStatusCode.RUNNING, null, failureReaction, pollingOptions);
 
         this.jobId = jobId;
     }
@@ -54,7 +57,7 @@ public class ResultWaitBuilder extends QubellBuilder {
      * Performs a build with following steps
      * <ol>
      * <li>Picks information about previously started job</li>
-     * <li>Waits for expected instance status</li>
+     * <li>Waits for completion of controller-side watch, or for expected instance status when job is not watched</li>
      * </ol>
      * If any of steps above failed, fails the job, marks build unstable or ignores the result
      *
@@ -65,28 +68,45 @@ public class ResultWaitBuilder extends QubellBuilder {
      */
     @Override
     public boolean perform(AbstractBuild build, Launcher launcher, BuildListener listener) throws IOException, InterruptedException {
-        resolveParameterPlaceholders(build, listener);
+        //Only job id is needed to read the job file, the rest is resolved once settings are recovered from it
+        this.jobIdResolved = resolveVariableMacros(build, listener, this.jobId);
 
         PrintStream buildLog = listener.getLogger();
         Map<String, Object> jobInfo;
 
+        InputStream jobFile = null;
         try {
-            jobInfo = JsonParser.parseMap(build.getWorkspace().child(jobIdResolved).readToString());
+            jobFile = build.getWorkspace().child(jobIdResolved).read();
+            jobInfo = JsonParser.parse(jobFile);
         } catch (IOException e) {
 
             logMessage(buildLog, "Unable to read job file %s", e.getMessage());
             build.setResult(Result.FAILURE);
             return false;
+        } finally {
+            IOUtils.closeQuietly(jobFile);
+        }
+        if (jobInfo == null) {
+            logMessage(buildLog, "Unable to parse job file %s", jobIdResolved);
+            build.setResult(Result.FAILURE);
+            return false;
         }
         outputFilePath = jobInfo.get(ASYNC_OUTPUT_PATH_KEY).toString();
         expectedStatus = InstanceStatusCode.valueOf(jobInfo.get(ASYNC_EXPECTED_STATUS_KEY).toString());
 
         //After variables are recovered and set, they need to be filtered against placeholders
+        //Step timeline is started here as well, with expected status of the job
         resolveParameterPlaceholders(build, listener);
 
         Instance instance = new Instance(jobInfo.get(ASYNC_INSTANCE_ID_KEY).toString());
         logMessage(buildLog, "Retrieved async job settings, instance id %s, expected status %s, output path %s", instance.getId(), expectedStatus, outputFilePath);
 
+        Object watchKey = jobInfo.get(ASYNC_WATCH_KEY);
+        if (watchKey != null && StatusWatcher.getInstance().isWatched(watchKey.toString())) {
+            logMessage(buildLog, "Job is supervised by controller, waiting for its completion");
+            return applyWatchResult(build, buildLog, instance, StatusWatcher.getInstance().awaitResult(watchKey.toString(), timeout * 1000L));
+        }
+
         return waitForExpectedStatus(build, buildLog, instance);
     }
 
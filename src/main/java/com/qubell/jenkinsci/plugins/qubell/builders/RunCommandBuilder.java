@@ -17,6 +17,7 @@
 package com.qubell.jenkinsci.plugins.qubell.builders;
 
 import com.qubell.jenkinsci.plugins.qubell.JsonParser;
+import com.qubell.jenkinsci.plugins.qubell.TimelineEvent;
 import com.qubell.services.Instance;
 import com.qubell.services.InstanceStatus;
 import com.qubell.services.InstanceStatusCode;
@@ -35,8 +36,6 @@ import org.kohsuke.stapler.QueryParameter;
 import javax.servlet.ServletException;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Runs a command on Qubell instance, initialized by {@link StartInstanceBuilder}
@@ -69,15 +68,16 @@ public class RunCommandBuilder extends QubellBuilder {
      * @param outputFilePath        path to output file
      * @param failureReaction       a target build status which should be set when instance returns failure status
      * @param asyncExecutionOptions optional settings for asynchronous job execution
+     * @param pollingOptions        optional per-instance adaptive polling bounds
      */
     @DataBoundConstructor
-    public RunCommandBuilder(String name, String extraParameters, String timeout, InstanceOptions instanceOptions, String outputFilePath, String failureReaction, AsyncExecutionOptions asyncExecutionOptions) {
-        this(name, extraParameters, timeout, instanceOptions, outputFilePath, InstanceStatusCode.RUNNING, failureReaction, asyncExecutionOptions);
+    public RunCommandBuilder(String name, String extraParameters, String timeout, InstanceOptions instanceOptions, String outputFilePath, String failureReaction, AsyncExecutionOptions asyncExecutionOptions, PollingOptions pollingOptions) {
+        this(name, extraParameters, timeout, instanceOptions, outputFilePath, InstanceStatusCode.RUNNING, failureReaction, asyncExecutionOptions, pollingOptions);
     }
 
 
-    protected RunCommandBuilder(String name, String extraParameters, String timeout, InstanceOptions instanceOptions, String outputFilePath, InstanceStatusCode expectedStatus, String failureReaction, AsyncExecutionOptions asyncExecutionOptions) {
-        super(timeout, expectedStatus, outputFilePath, failureReaction);
+    protected RunCommandBuilder(String name, String extraParameters, String timeout, InstanceOptions instanceOptions, String outputFilePath, InstanceStatusCode expectedStatus, String failureReaction, AsyncExecutionOptions asyncExecutionOptions, PollingOptions pollingOptions) {
+        super(timeout, expectedStatus, outputFilePath, failureReaction, pollingOptions);
         this.commandName = name;
         this.extraParameters = extraParameters;
         this.instanceOptions = instanceOptions;
@@ -209,19 +209,23 @@ public class RunCommandBuilder extends QubellBuilder {
 
 
         int attempt = 0;
+        long pausedMillis = 0;
         StopWatch sw = new StopWatch();
         sw.start();
 
+        getTimeline(build).setInstanceId(instance.getId());
         while (true) {
             attempt++;
+            long commandStartedAt = System.currentTimeMillis();
             try {
-                getServiceFacade().runCommand(instance, commandNameResolved, JsonParser.parseMap(extraParametersResolved));
+                getServiceFacade(build).runCommand(instance, commandNameResolved, JsonParser.parseMap(extraParametersResolved));
+                getTimeline(build).addCall(TimelineEvent.Kind.COMMAND, String.format("%s, attempt #%d", commandNameResolved, attempt), commandStartedAt);
                 break;
             }catch (InstanceBusyException ibe){
 
                 logMessage(buildLog, "Instance not ready to accept requests. Sleep #%d", attempt);
 
-                if (sw.getTime() >= timeout * 1000) {
+                if (sw.getTime() - pausedMillis >= timeout * 1000) {
                     logMessage(buildLog, "Timeout exceeded");
                     build.setResult(Result.FAILURE);
                     return false;
@@ -229,6 +233,12 @@ public class RunCommandBuilder extends QubellBuilder {
 
                 Thread.sleep(getConfiguration().getStatusPollingInterval() * 1000);
             }
+            catch (ServiceUnavailableException sue) {
+                // API outage does not count against the timeout
+                logMessage(buildLog, "%s. Waiting before next attempt", sue.getMessage());
+                Thread.sleep(sue.getRetryAfterMillis());
+                pausedMillis += sue.getRetryAfterMillis();
+            }
             catch (QubellServiceException e) {
                 logMessage(buildLog, "Error when running command: %s", e.getMessage());
                 build.setResult(Result.FAILURE);
@@ -236,20 +246,20 @@ public class RunCommandBuilder extends QubellBuilder {
             }
         }
         if (StringUtils.isNotBlank(jobIdResolved)) {
-            logMessage(buildLog, "Job configured to be ran asynchronously, saving instance id and expected status for job id %s", jobIdResolved);
-            Map<String, Object> asyncData = new HashMap<String, Object>();
-            asyncData.put(ASYNC_INSTANCE_ID_KEY, instanceId);
-            asyncData.put(ASYNC_EXPECTED_STATUS_KEY, expectedStatus);
-            asyncData.put(ASYNC_OUTPUT_PATH_KEY, getOutputFilePath());
-
-            saveFileToWorkspace(build, buildLog, JsonParser.serialize(asyncData), jobIdResolved);
-
-            return true;
+            return handOffToWatcher(build, buildLog, instance, jobIdResolved);
         }
 
         return waitForExpectedStatus(build, buildLog, instance);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getWorkflowName() {
+        return commandNameResolved;
+    }
+
     /**
      * Descriptor for {@link RunCommandBuilder}. Used as a singleton.
      * The class is marked as public so that it can be accessed from views.
@@ -18,6 +18,9 @@ package com.qubell.jenkinsci.plugins.qubell.builders;
 
 import com.qubell.jenkinsci.plugins.qubell.Configuration;
 import com.qubell.jenkinsci.plugins.qubell.JsonParser;
+import com.qubell.jenkinsci.plugins.qubell.ManifestVersionCache;
+import com.qubell.jenkinsci.plugins.qubell.TimelineEvent;
+import com.qubell.jenkinsci.plugins.qubell.WorkspaceManifest;
 import com.qubell.services.*;
 import com.qubell.services.exceptions.*;
 import hudson.Extension;
@@ -30,12 +33,14 @@ import hudson.util.FormValidation;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerResponse;
 
 import javax.servlet.ServletException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -44,7 +49,6 @@ import java.util.UUID;
  * @author Alex Krupnov
  */
 public class StartInstanceBuilder extends QubellBuilder {
-    private static String MANIFEST_TEMP_NAME = "project_manifest.yaml";
 
     private final String manifestRelativePath;
     private String manifestRelativePathResolved;
@@ -58,6 +62,10 @@ public class StartInstanceBuilder extends QubellBuilder {
     private final String extraParameters;
     private String extraParametersResolved;
 
+    private AsyncExecutionOptions asyncExecutionOptions;
+    private String jobId;
+    private String jobIdResolved;
+
     /**
      * Manifest file path, relative to project workspace
      *
@@ -94,6 +102,24 @@ public class StartInstanceBuilder extends QubellBuilder {
         return extraParameters;
     }
 
+    /**
+     * Identifier for the job, used to pick the launch result later by {@link ResultWaitBuilder}
+     *
+     * @return identifier of the job
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Optional settings for async launch wait
+     *
+     * @return async settings or null
+     */
+    public AsyncExecutionOptions getAsyncExecutionOptions() {
+        return asyncExecutionOptions;
+    }
+
     /**
      * Data bound constructor, executed by Jenkins
      *
@@ -104,29 +130,35 @@ public class StartInstanceBuilder extends QubellBuilder {
      * @param extraParameters      see {@link #getExtraParameters()}
      * @param outputFilePath       path to output file
      * @param failureReaction      a target build status which should be set when instnace returns failure status
+     * @param asyncExecutionOptions optional settings for asynchronous launch wait
+     * @param pollingOptions       optional per-instance adaptive polling bounds
      */
     @DataBoundConstructor
-    public StartInstanceBuilder(String manifestRelativePath, String timeout, String environmentId, String applicationId, String extraParameters, String outputFilePath, String failureReaction) {
-        super(timeout, InstanceStatusCode.RUNNING, outputFilePath, failureReaction);
+    public StartInstanceBuilder(String manifestRelativePath, String timeout, String environmentId, String applicationId, String extraParameters, String outputFilePath, String failureReaction, AsyncExecutionOptions asyncExecutionOptions, PollingOptions pollingOptions) {
+        super(timeout, InstanceStatusCode.RUNNING, outputFilePath, failureReaction, pollingOptions);
         this.manifestRelativePath = manifestRelativePath;
         this.environmentId = environmentId;
         this.applicationId = applicationId;
         this.extraParameters = extraParameters;
+        this.asyncExecutionOptions = asyncExecutionOptions;
+
+        if (asyncExecutionOptions != null) {
+            this.jobId = asyncExecutionOptions.getJobId();
+        }
     }
 
     /**
-     * Copies manifest from build workflow (either on master or slave), into temporary folder on master
+     * Locates manifest in build workspace (either on master or slave), it is streamed from there on update
      *
      * @param build    current build
      * @param buildLog current build log
-     * @return {@link FilePath} object for new temporary maifest file
-     * @throws IOException          when file could not be copied/accessed
+     * @return manifest backed by workspace file
+     * @throws IOException          when file could not be accessed
      * @throws InterruptedException when operation is interrupted
      */
-    protected FilePath copyManifest(AbstractBuild build, PrintStream buildLog) throws IOException, InterruptedException {
-        logMessage(buildLog, "copying manifest from current build workspace. Relative path is %s", manifestRelativePathResolved);
+    protected WorkspaceManifest findManifest(AbstractBuild build, PrintStream buildLog) throws IOException, InterruptedException {
+        logMessage(buildLog, "Reading manifest from current build workspace. Relative path is %s", manifestRelativePathResolved);
 
-        FilePath destinationManifest = getTemporaryManifestPath(build, buildLog);
         FilePath sourceManifest = build.getWorkspace().child(manifestRelativePathResolved);
 
         if (!sourceManifest.exists()) {
@@ -134,26 +166,15 @@ public class StartInstanceBuilder extends QubellBuilder {
             throw new FileNotFoundException("Manifest not found");
         }
 
-        //logMessage(buildLog,  "Copying manifest running on  %s at %s to %s", currentMachine, sourceManifest.toURI(), destinationManifest.toURI());
-
-        sourceManifest.copyTo(destinationManifest);
-        return destinationManifest;
-    }
-
-    private FilePath getTemporaryManifestPath(AbstractBuild build, PrintStream buildLog) {
-        FilePath masterWorkspaceRoot = getMasterWorkspaceRoot(build, buildLog);
-
-        //Using base file name + guid to ensure there are no conflicts in manifest
-        return masterWorkspaceRoot.child(UUID.randomUUID().toString() + "." + MANIFEST_TEMP_NAME);
+        return new WorkspaceManifest(sourceManifest);
     }
 
     /**
      * Performs a build with following steps
      * <ol>
-     * <li>Copies manifest into temp folder</li>
-     * <li>Updates manifest for qubell application</li>
+     * <li>Streams manifest from workspace into manifest update of qubell application</li>
      * <li>Launches application instance</li>
-     * <li>Waits when instance turned into Running state</li>
+     * <li>Waits when instance turned into Running state, or hands the wait to controller-side watcher when asynchronous</li>
      * <li>Saves instance id for {@link RunCommandBuilder} or {@link DestroyInstanceBuilder}</li>
      * </ol>
      *
@@ -168,9 +189,7 @@ public class StartInstanceBuilder extends QubellBuilder {
     public boolean perform(AbstractBuild build, Launcher launcher, BuildListener listener) throws IOException, InterruptedException {
         resolveParameterPlaceholders(build, listener);
 
-        FilePath manifestFile;
-
-        Manifest manifest;
+        WorkspaceManifest manifest;
 
         PrintStream buildLog = listener.getLogger();
 
@@ -183,14 +202,14 @@ public class StartInstanceBuilder extends QubellBuilder {
 
         Application application = new Application(applicationIdResolved);
         Integer updatedVersion = 0;
+        String reusedManifestDigest = null;
 
         if (!StringUtils.isBlank(manifestRelativePathResolved)) {
+            String manifestDigest;
             try {
-                manifestFile = copyManifest(build, buildLog);
-                manifest = new Manifest(manifestFile.readToString());
-
-                logMessage(buildLog, "Deleting temporary manifestFile");
-                manifestFile.delete();
+                manifest = findManifest(build, buildLog);
+                // Digest is computed next to the file, content itself is only read by the upload
+                manifestDigest = getConfiguration().isReuseManifestVersions() ? manifest.getDigest() : null;
             } catch (FileNotFoundException fnfe) {
                 logMessage(buildLog, "Unable to proceed without manifest");
                 build.setResult(Result.FAILURE);
@@ -201,35 +220,109 @@ public class StartInstanceBuilder extends QubellBuilder {
                 return false;
             }
 
-            logMessage(buildLog, "Updating app manifest");
-
-            try {
-                updatedVersion = getServiceFacade().updateManifest(application, manifest);
-                logMessage(buildLog, "Manifest updated. New version is %s", updatedVersion.toString());
-            } catch (QubellServiceException e) {
-                logMessage(buildLog, "Error when updating manifest: %s", e.getMessage());
-                build.setResult(Result.FAILURE);
-                return false;
+            Integer knownVersion = manifestDigest != null
+                    ? ManifestVersionCache.get().getVersion(getConfiguration(), application.getId(), manifestDigest)
+                    : null;
+
+            if (knownVersion != null) {
+                logMessage(buildLog, "Manifest is unchanged since version %s, skipping update", knownVersion.toString());
+                updatedVersion = knownVersion;
+                reusedManifestDigest = manifestDigest;
+            } else {
+                updatedVersion = updateManifest(build, buildLog, application, manifest);
+                if (updatedVersion == null) {
+                    return false;
+                }
             }
+        } else {
+            manifest = null;
         }
 
         Instance instance;
         try {
-            instance = getServiceFacade().launchInstance(new InstanceSpecification(application, updatedVersion),
-                    new LaunchSettings(new Environment(environmentIdResolved), JsonParser.parseMap(extraParametersResolved)));
-
-            logMessage(buildLog, "Launched instance %s", instance.getId());
-            saveBuildVariable(build, INSTANCE_ID_KEY, instance.getId(), buildLog);
-
+            try {
+                instance = launchInstance(build, buildLog, application, updatedVersion);
+            } catch (QubellServiceException e) {
+                if (reusedManifestDigest == null || !(e instanceof ResourceNotFoundException)) {
+                    throw e;
+                }
+                // Version known from earlier builds may be gone, uploading the manifest again
+                logMessage(buildLog, "Unable to launch version %s: %s. Updating app manifest", updatedVersion.toString(), e.getMessage());
+                ManifestVersionCache.get().removeVersion(getConfiguration(), application.getId(), reusedManifestDigest);
+
+                updatedVersion = updateManifest(build, buildLog, application, manifest);
+                if (updatedVersion == null) {
+                    return false;
+                }
+                instance = launchInstance(build, buildLog, application, updatedVersion);
+            }
         } catch (QubellServiceException e) {
             logMessage(buildLog, "Error when launching instance: %s", e.getMessage());
             build.setResult(Result.FAILURE);
             return false;
         }
 
+        if (StringUtils.isNotBlank(jobIdResolved)) {
+            return handOffToWatcher(build, buildLog, instance, jobIdResolved);
+        }
+
         return waitForExpectedStatus(build, buildLog, instance);
     }
 
+    /**
+     * Uploads manifest, remembering the new version for builds with the same manifest
+     * The version is stored under digest of the content actually sent
+     *
+     * @return new version, null when update failed and build result was set
+     */
+    private Integer updateManifest(AbstractBuild build, PrintStream buildLog, Application application, WorkspaceManifest manifest) {
+        logMessage(buildLog, "Updating app manifest");
+
+        long updateStartedAt = System.currentTimeMillis();
+        try {
+            Integer updatedVersion = getServiceFacade(build).updateManifest(application, manifest);
+            logMessage(buildLog, "Manifest updated. New version is %s", updatedVersion.toString());
+            getTimeline(build).addCall(TimelineEvent.Kind.MANIFEST_UPDATE, String.format("Version %s", updatedVersion), updateStartedAt);
+
+            if (manifest.getUploadedDigest() != null) {
+                ManifestVersionCache.get().putVersion(getConfiguration(), application.getId(),
+                        manifest.getUploadedDigest(), updatedVersion);
+            }
+            return updatedVersion;
+        } catch (QubellServiceException e) {
+            logMessage(buildLog, "Error when updating manifest: %s", e.getMessage());
+            build.setResult(Result.FAILURE);
+            return null;
+        }
+    }
+
+    /**
+     * Launches instance of given application version and saves its id as build variable
+     *
+     * @return launched instance
+     */
+    private Instance launchInstance(AbstractBuild build, PrintStream buildLog, Application application, Integer version) throws QubellServiceException {
+        long launchStartedAt = System.currentTimeMillis();
+        Instance instance = getServiceFacade(build).launchInstance(new InstanceSpecification(application, version),
+                new LaunchSettings(new Environment(environmentIdResolved), JsonParser.parseMap(extraParametersResolved)));
+
+        logMessage(buildLog, "Launched instance %s", instance.getId());
+        getTimeline(build).addCall(TimelineEvent.Kind.LAUNCH, String.format("Instance %s", instance.getId()), launchStartedAt);
+        getTimeline(build).setInstanceId(instance.getId());
+        saveBuildVariable(build, INSTANCE_ID_KEY, instance.getId(), buildLog);
+        trackLaunchedInstance(build, instance);
+
+        return instance;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getWorkflowName() {
+        return "launch";
+    }
+
     @Override
     protected void resolveParameterPlaceholders(AbstractBuild build, BuildListener listener) throws IOException, InterruptedException {
         super.resolveParameterPlaceholders(build, listener);
@@ -238,6 +331,7 @@ public class StartInstanceBuilder extends QubellBuilder {
         this.environmentIdResolved = resolveVariableMacros(build, listener, this.environmentId);
         this.applicationIdResolved = resolveVariableMacros(build, listener, this.applicationId);
         this.extraParametersResolved = resolveVariableMacros(build, listener, this.extraParameters);
+        this.jobIdResolved = resolveVariableMacros(build, listener, this.jobId);
     }
 
     /**
@@ -248,19 +342,37 @@ public class StartInstanceBuilder extends QubellBuilder {
      */
     @Extension // This indicates to Jenkins that this is an implementation of an extension point.
     public static final class StartInstanceDescriptor extends BaseDescriptor {
+        /**
+         * Number of typeahead suggestions returned when client does not ask for specific limit
+         */
+        public static final int DEFAULT_TYPEAHEAD_LIMIT = 10;
+        private static final int MAX_TYPEAHEAD_LIMIT = 100;
+
         /**
          * Performs on-the-fly validation of the form field application id
+         * Checks the id against cached catalog, falls back to a single credentials check when catalog is not loaded yet
          *
          * @param value This parameter receives the value that the user has typed.
          * @return Indicates the outcome of the validation. This is sent to the browser.
          */
         public FormValidation doCheckApplicationId(@QueryParameter String value)
                 throws IOException, ServletException {
+            if (value.length() == 0)
+                return FormValidation.error("Please specify an application id");
+
             try {
-                new QubellFacadeImpl(Configuration.get()).getAllApplications();
-                if (value.length() == 0)
-                    return FormValidation.error("Please specify an application id");
-                return FormValidation.ok();
+                Catalog catalog = getCatalogForValidation();
+                if (catalog == null || hasVariableMacros(value)) {
+                    return FormValidation.ok();
+                }
+
+                Application application = catalog.findApplication(value);
+                if (application == null) {
+                    return notFound(catalog, String.format("Application %s not found", value));
+                }
+                return FormValidation.ok(describeOwner(application.getName(), application.getOrganization()));
+            } catch (ServiceUnavailableException sue) {
+                return FormValidation.warning(sue.getMessage());
             } catch (QubellServiceException qce) {
                 return FormValidation.error(qce.getMessage());
             }
@@ -268,6 +380,7 @@ public class StartInstanceBuilder extends QubellBuilder {
 
         /**
          * Performs on-the-fly validation of the form field environment id
+         * Checks the id against cached catalog, falls back to a single credentials check when catalog is not loaded yet
          *
          * @param value This parameter receives the value that the user has typed.
          * @return Indicates the outcome of the validation. This is sent to the browser.
@@ -275,8 +388,18 @@ public class StartInstanceBuilder extends QubellBuilder {
         public FormValidation doCheckEnvironmentId(@QueryParameter String value)
                 throws IOException, ServletException {
             try {
-                new QubellFacadeImpl(Configuration.get()).getAllEnvironments();
-                return FormValidation.ok();
+                Catalog catalog = getCatalogForValidation();
+                if (catalog == null || value.length() == 0 || hasVariableMacros(value)) {
+                    return FormValidation.ok();
+                }
+
+                Environment environment = catalog.findEnvironment(value);
+                if (environment == null) {
+                    return notFound(catalog, String.format("Environment %s not found", value));
+                }
+                return FormValidation.ok(describeOwner(environment.getName(), environment.getOrganization()));
+            } catch (ServiceUnavailableException sue) {
+                return FormValidation.warning(sue.getMessage());
             } catch (QubellServiceException qce) {
                 return FormValidation.error(qce.getMessage());
             }
@@ -284,31 +407,91 @@ public class StartInstanceBuilder extends QubellBuilder {
         }
 
         /**
-         * Gets application list json for typeahead functionality
+         * Gets catalog for validation without blocking on full catalog download
+         * When nothing is cached, credentials are checked with a single organizations call and catalog is loaded in background
+         *
+         * @return cached catalog or null when it is not available yet
+         * @throws InvalidCredentialsException when user credentials are invalid
+         * @throws NotAuthorizedException      when user is not authorized to list organizations
+         * @throws ServiceUnavailableException when API calls are suspended
+         */
+        private Catalog getCatalogForValidation() throws InvalidCredentialsException, NotAuthorizedException, ServiceUnavailableException {
+            Configuration configuration = Configuration.get();
+            Catalog catalog = CatalogCache.getInstance().getCachedCatalog(configuration);
+            if (catalog == null) {
+                new QubellFacadeImpl(configuration).getOrganizations();
+                CatalogCache.getInstance().preload(configuration);
+            }
+            return catalog;
+        }
+
+        private boolean hasVariableMacros(String value) {
+            return value.contains("$");
+        }
+
+        private FormValidation notFound(Catalog catalog, String message) {
+            if (catalog.getFailedOrganizations().isEmpty()) {
+                return FormValidation.error(message);
+            }
+            // Id might belong to one of organizations we failed to list, so not blocking the user
+            return FormValidation.warning(String.format("%s, following organizations could not be listed: %s",
+                    message, StringUtils.join(catalog.getFailedOrganizations(), "; ")));
+        }
+
+        private String describeOwner(String name, Organization organization) {
+            if (organization == null) {
+                return name;
+            }
+            return String.format("%s, belongs to organization %s", name, organization.getName());
+        }
+
+        /**
+         * Serves typeahead queries for applications, see {@link TypeAheadIndex}
          *
-         * @return json object for apps list
+         * @param rsp   response, json list of matching applications
+         * @param q     query typed by the user
+         * @param limit maximum number of applications to return, {@link #DEFAULT_TYPEAHEAD_LIMIT} when omitted
          */
-        public String getApplicationsTypeAheadJson() {
+        public void doApplicationsTypeAhead(StaplerResponse rsp, @QueryParameter String q, @QueryParameter String limit)
+                throws IOException {
+            List<Application> applications = new ArrayList<Application>();
             try {
-                return JsonParser.serialize(new QubellFacadeImpl(Configuration.get()).getAllApplications());
+                applications = CatalogCache.getInstance().getCatalog(Configuration.get()).getApplicationsIndex().search(q, parseLimit(limit));
             } catch (QubellServiceException qce) {
                 // lets just silently swallow exception and hope that somebody is reading validation errors
-                return "{}";
             }
+            writeTypeAheadResponse(rsp, applications);
         }
 
         /**
-         * Gets environments list json for typeahead functionality
+         * Serves typeahead queries for environments, see {@link TypeAheadIndex}
          *
-         * @return json object for envs list
+         * @param rsp   response, json list of matching environments
+         * @param q     query typed by the user
+         * @param limit maximum number of environments to return, {@link #DEFAULT_TYPEAHEAD_LIMIT} when omitted
          */
-        public String getEnvironmentsTypeAheadJson() {
+        public void doEnvironmentsTypeAhead(StaplerResponse rsp, @QueryParameter String q, @QueryParameter String limit)
+                throws IOException {
+            List<Environment> environments = new ArrayList<Environment>();
             try {
-                return JsonParser.serialize(new QubellFacadeImpl(Configuration.get()).getAllEnvironments());
+                environments = CatalogCache.getInstance().getCatalog(Configuration.get()).getEnvironmentsIndex().search(q, parseLimit(limit));
             } catch (QubellServiceException qce) {
                 // lets just silently swallow exception and hope that somebody is reading validation errors
-                return "{}";
             }
+            writeTypeAheadResponse(rsp, environments);
+        }
+
+        private int parseLimit(String limit) {
+            try {
+                return limit != null ? Math.min(Integer.parseInt(limit), MAX_TYPEAHEAD_LIMIT) : DEFAULT_TYPEAHEAD_LIMIT;
+            } catch (NumberFormatException e) {
+                return DEFAULT_TYPEAHEAD_LIMIT;
+            }
+        }
+
+        private void writeTypeAheadResponse(StaplerResponse rsp, List<?> datums) throws IOException {
+            rsp.setContentType("application/json;charset=UTF-8");
+            JsonParser.serialize(datums, rsp.getOutputStream());
         }
 
         /**
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell.builders;
+
+import com.qubell.jenkinsci.plugins.qubell.JsonParser;
+import com.qubell.jenkinsci.plugins.qubell.TimelineEvent;
+import com.qubell.services.*;
+import com.qubell.services.exceptions.QubellServiceException;
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Result;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Launches several Qubell instances of one or more applications at once and saves their ids.
+ * Launch calls are made concurrently and all instances are waited for by the shared status poller,
+ * so bringing up N instances takes about as long as the slowest of them instead of the sum.
+ * <p/>
+ * Ids of all launched instances are saved as {@code QUBELL_INSTANCE_IDS} (comma separated) and {@code QUBELL_INSTANCE_ID_1..N},
+ * the first instance which reached Running state is saved as {@code QUBELL_INSTANCE_ID} for {@link RunCommandBuilder} or {@link DestroyInstanceBuilder}
+ *
+ * @author Alex Krupnov
+ */
+public class StartInstancesBuilder extends QubellBuilder {
+    /**
+     * Maximum amount of launch calls made at once by a single step
+     */
+    static final int LAUNCH_CONCURRENCY = 8;
+
+    private final String applicationIds;
+    private String applicationIdsResolved;
+
+    private final int instanceCount;
+
+    private final String environmentId;
+    private String environmentIdResolved;
+
+    private final String extraParameters;
+    private String extraParametersResolved;
+
+    private final SuccessPolicy successPolicy;
+    private final int requiredCount;
+
+    /**
+     * Data bound constructor, executed by Jenkins
+     *
+     * @param applicationIds  see {@link #getApplicationIds()}
+     * @param instanceCount   see {@link #getInstanceCount()}
+     * @param timeout         see {@link #getTimeout()}
+     * @param environmentId   see {@link #getEnvironmentId()}
+     * @param extraParameters see {@link #getExtraParameters()}
+     * @param successPolicy   see {@link #getSuccessPolicy()}
+     * @param requiredCount   see {@link #getRequiredCount()}
+     * @param outputFilePath  path to output file
+     * @param failureReaction a target build status which should be set when instances do not reach Running state
+     * @param pollingOptions  optional per-instance adaptive polling bounds
+     */
+    @DataBoundConstructor
+    public StartInstancesBuilder(String applicationIds, String instanceCount, String timeout, String environmentId, String extraParameters, String successPolicy, String requiredCount, String outputFilePath, String failureReaction, PollingOptions pollingOptions) {
+        super(timeout, InstanceStatusCode.RUNNING, outputFilePath, failureReaction, pollingOptions);
+        this.applicationIds = applicationIds;
+        this.instanceCount = StringUtils.isBlank(instanceCount) ? 1 : Integer.parseInt(instanceCount);
+        this.environmentId = environmentId;
+        this.extraParameters = extraParameters;
+        this.successPolicy = StringUtils.isBlank(successPolicy) ? SuccessPolicy.ALL : SuccessPolicy.valueOf(successPolicy);
+        this.requiredCount = StringUtils.isBlank(requiredCount) ? 1 : Integer.parseInt(requiredCount);
+    }
+
+    /**
+     * Qubell application ids to launch, separated by commas or whitespace
+     *
+     * @return value of application ids
+     */
+    public String getApplicationIds() {
+        return applicationIds;
+    }
+
+    /**
+     * Amount of instances launched per application
+     *
+     * @return instance count
+     */
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    /**
+     * Qubell environment id, optional
+     *
+     * @return environment id
+     */
+    public String getEnvironmentId() {
+        return environmentId;
+    }
+
+    /**
+     * Extra parameters as JSON object string representation, the same for every instance
+     *
+     * @return value of json string
+     */
+    public String getExtraParameters() {
+        return extraParameters;
+    }
+
+    /**
+     * Decides how many instances have to reach Running state
+     *
+     * @return name of success policy
+     */
+    public String getSuccessPolicy() {
+        return successPolicy.name();
+    }
+
+    /**
+     * Amount of instances which have to reach Running state, used by {@link SuccessPolicy#FIRST_K}
+     *
+     * @return required count
+     */
+    public int getRequiredCount() {
+        return requiredCount;
+    }
+
+    /**
+     * Performs a build with following steps
+     * <ol>
+     * <li>Launches requested amount of instances of every application, several launches at once</li>
+     * <li>Saves ids of launched instances</li>
+     * <li>Waits for instances to turn into Running state, until enough of them did according to {@link #getSuccessPolicy()}</li>
+     * <li>Saves return values of instances which reached Running state</li>
+     * </ol>
+     *
+     * @param build    current build
+     * @param launcher build launcher
+     * @param listener listener
+     * @return true of builder did not fail, otherwise false
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Override
+    public boolean perform(AbstractBuild build, Launcher launcher, BuildListener listener) throws IOException, InterruptedException {
+        resolveParameterPlaceholders(build, listener);
+
+        PrintStream buildLog = listener.getLogger();
+
+        if (!validateConfiguration()) {
+            logMessage(buildLog, "Unable to proceed without configuration. Please check global settings page.");
+
+            build.setResult(Result.FAILURE);
+            return false;
+        }
+
+        List<InstanceSpecification> specifications = new ArrayList<InstanceSpecification>();
+        for (String applicationId : StringUtils.split(StringUtils.defaultString(applicationIdsResolved), ", \t\r\n")) {
+            for (int i = 0; i < instanceCount; i++) {
+                specifications.add(new InstanceSpecification(new Application(applicationId)));
+            }
+        }
+        if (specifications.isEmpty()) {
+            logMessage(buildLog, "Unable to proceed without application ids and instance count");
+            build.setResult(Result.FAILURE);
+            return false;
+        }
+
+        int required = successPolicy.getRequired(specifications.size(), requiredCount);
+        logMessage(buildLog, "Launching %d instances, %d of them have to reach status %s", specifications.size(), required, expectedStatus);
+
+        List<Instance> instances = launchInstances(build, buildLog, specifications);
+        saveInstanceIds(build, buildLog, instances);
+
+        if (Thread.interrupted()) {
+            // Instances launched before the interrupt are tracked, so they can still be destroyed by the build
+            logMessage(buildLog, "Build interrupted");
+            build.setResult(Result.FAILURE);
+            return false;
+        }
+
+        if (instances.size() < required) {
+            logMessage(buildLog, "Only %d instances were launched, unable to proceed", instances.size());
+            build.setResult(Result.FAILURE);
+            return false;
+        }
+
+        Map<String, InstanceStatus> reached;
+        try {
+            reached = waitForInstanceStatuses(build, buildLog, instances, required);
+        } catch (InterruptedException e) {
+            logMessage(buildLog, "Build interrupted");
+            build.setResult(Result.FAILURE);
+            return false;
+        }
+
+        if (reached.size() < required) {
+            Result failureReaction = Result.fromString(getFailureReaction());
+            build.setResult(failureReaction);
+            return failureReaction != Result.FAILURE;
+        }
+
+        List<Instance> reachedInstances = new ArrayList<Instance>();
+        for (InstanceStatus status : reached.values()) {
+            reachedInstances.add(status.getInstance());
+        }
+        saveBuildVariable(build, INSTANCE_ID_KEY, reachedInstances.get(0).getId(), buildLog);
+
+        try {
+            //Since return values not always getting populated instantly, adding an explicit wait here
+            Thread.sleep(2000);
+            saveReturnValues(build, buildLog, reachedInstances);
+        } catch (QubellServiceException e) {
+            logMessage(buildLog, "Error when getting instance statuses: %s", e.getMessage());
+            build.setResult(Result.FAILURE);
+            return false;
+        } catch (InterruptedException e) {
+            logMessage(buildLog, "Build interrupted");
+            build.setResult(Result.FAILURE);
+            return false;
+        } catch (IOException e) {
+            build.setResult(Result.FAILURE);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Launches instances concurrently, reporting failed launches and tracking launched ones for {@link DestroyInstancesBuilder}
+     *
+     * @return launched instances, in order of specifications
+     */
+    private List<Instance> launchInstances(AbstractBuild build, PrintStream buildLog, List<InstanceSpecification> specifications) {
+        long launchStartedAt = System.currentTimeMillis();
+        List<LaunchResult> results = getServiceFacade(build).launchInstances(specifications,
+                new LaunchSettings(new Environment(environmentIdResolved), JsonParser.parseMap(extraParametersResolved)), LAUNCH_CONCURRENCY);
+
+        List<Instance> instances = new ArrayList<Instance>();
+        for (LaunchResult result : results) {
+            String applicationId = result.getSpecification().getApplication().getId();
+            if (result.isLaunched()) {
+                logMessage(buildLog, "Launched instance %s of application %s", result.getInstance().getId(), applicationId);
+                getTimeline(build).addCall(TimelineEvent.Kind.LAUNCH, String.format("Instance %s", result.getInstance().getId()), launchStartedAt);
+                instances.add(result.getInstance());
+                trackLaunchedInstance(build, result.getInstance());
+            } else {
+                logMessage(buildLog, "Error when launching instance of application %s: %s", applicationId, result.getError().getMessage());
+                getTimeline(build).addEvent(TimelineEvent.Kind.ERROR, String.format("Launch of %s: %s", applicationId, result.getError().getMessage()));
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * Saves ids of launched instances, so further steps can use every one of them
+     */
+    private void saveInstanceIds(AbstractBuild build, PrintStream buildLog, List<Instance> instances) {
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < instances.size(); i++) {
+            String id = instances.get(i).getId();
+            ids.add(id);
+            saveBuildVariable(build, INSTANCE_ID_KEY + "_" + (i + 1), id, buildLog);
+        }
+        saveBuildVariable(build, INSTANCE_IDS_KEY, StringUtils.join(ids, ","), buildLog);
+        if (!ids.isEmpty()) {
+            saveBuildVariable(build, INSTANCE_ID_KEY, ids.get(0), buildLog);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getWorkflowName() {
+        return "launch";
+    }
+
+    @Override
+    protected void resolveParameterPlaceholders(AbstractBuild build, BuildListener listener) throws IOException, InterruptedException {
+        super.resolveParameterPlaceholders(build, listener);
+
+        this.applicationIdsResolved = resolveVariableMacros(build, listener, this.applicationIds);
+        this.environmentIdResolved = resolveVariableMacros(build, listener, this.environmentId);
+        this.extraParametersResolved = resolveVariableMacros(build, listener, this.extraParameters);
+    }
+
+    /**
+     * Descriptor for {@link StartInstancesBuilder}. Used as a singleton.
+     * The class is marked as public so that it can be accessed from views.
+     * See <tt>src/main/resources/com/qubell/jenkinsci/plugins/qubell/builders/StartInstancesBuilder/*.jelly</tt>
+     * for the actual HTML fragment for the configuration screen.
+     */
+    @Extension // This indicates to Jenkins that this is an implementation of an extension point.
+    public static final class StartInstancesDescriptor extends BaseDescriptor {
+        /**
+         * Performs on-the-fly validation of the form field application ids
+         *
+         * @param value This parameter receives the value that the user has typed.
+         * @return Indicates the outcome of the validation. This is sent to the browser.
+         */
+        public FormValidation doCheckApplicationIds(@QueryParameter String value)
+                throws IOException, ServletException {
+            if (StringUtils.isBlank(value))
+                return FormValidation.error("Please specify at least one application id");
+            return FormValidation.ok();
+        }
+
+        /**
+         * Validates instance count: integer, greater then zero
+         *
+         * @param value string value passed from form
+         * @return jenkins validation container, see {@link FormValidation}
+         */
+        public FormValidation doCheckInstanceCount(@QueryParameter String value)
+                throws IOException, ServletException {
+            return checkPositive(value, "Instance count must be a positive integer");
+        }
+
+        /**
+         * Validates required count: integer, greater then zero
+         *
+         * @param value string value passed from form
+         * @return jenkins validation container, see {@link FormValidation}
+         */
+        public FormValidation doCheckRequiredCount(@QueryParameter String value)
+                throws IOException, ServletException {
+            return checkPositive(value, "Required count must be a positive integer");
+        }
+
+        private FormValidation checkPositive(String value, String message) {
+            try {
+                if (Integer.parseInt(value) <= 0) {
+                    return FormValidation.error(message);
+                }
+            } catch (NumberFormatException nfe) {
+                return FormValidation.error(message);
+            }
+
+            return FormValidation.ok();
+        }
+
+        public ListBoxModel doFillSuccessPolicyItems() {
+            ListBoxModel items = new ListBoxModel();
+
+            for (SuccessPolicy policy : SuccessPolicy.values()) {
+                items.add(policy.getDisplayName(), policy.name());
+            }
+
+            return items;
+        }
+
+        /**
+         * This human readable name is used in the configuration screen.
+         */
+        public String getDisplayName() {
+            return "Qubell: Launch Several Application Instances";
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.jenkinsci.plugins.qubell.builders;
+
+/**
+ * Decides how many of several launched instances have to reach expected status for the build step to succeed,
+ * see {@link StartInstancesBuilder}
+ *
+ * @author Alex Krupnov
+ */
+public enum SuccessPolicy {
+    /**
+     * Every requested instance
+     */
+    ALL("All instances"),
+    /**
+     * More than half of requested instances
+     */
+    QUORUM("Majority of instances"),
+    /**
+     * Given amount of instances, whichever are the first
+     */
+    FIRST_K("First K instances");
+
+    private final String displayName;
+
+    SuccessPolicy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return human readable name, used in the configuration screen
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Amount of instances which have to reach expected status
+     *
+     * @param total         amount of requested instances
+     * @param requiredCount amount configured for {@link #FIRST_K}
+     * @return required amount, never more than total
+     */
+    public int getRequired(int total, int requiredCount) {
+        switch (this) {
+            case QUORUM:
+                return total / 2 + 1;
+            case FIRST_K:
+                return Math.min(Math.max(requiredCount, 1), total);
+            default:
+                return total;
+        }
+    }
+}
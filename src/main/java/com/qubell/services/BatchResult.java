@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a call made for several items at once, keyed by item id
+ * Every item has either a result or the error its part of the call failed with, so one failing item does not hide
+ * results of the others
+ *
+ * @param <T> type of results
+ * @author Alex Krupnov
+ */
+public class BatchResult<T> {
+    private final Map<String, T> results = new HashMap<String, T>();
+    private final Map<String, Exception> errors = new HashMap<String, Exception>();
+
+    /**
+     * Records result of an item
+     *
+     * @param id     item id
+     * @param result result of the item
+     */
+    public void put(String id, T result) {
+        results.put(id, result);
+        errors.remove(id);
+    }
+
+    /**
+     * Records failure of an item
+     *
+     * @param id    item id
+     * @param error failure of the item
+     */
+    public void fail(String id, Exception error) {
+        errors.put(id, error);
+        results.remove(id);
+    }
+
+    /**
+     * @param id item id
+     * @return result of the item or null when item failed or was not asked
+     */
+    public T get(String id) {
+        return results.get(id);
+    }
+
+    /**
+     * @param id item id
+     * @return failure of the item or null when item succeeded or was not asked
+     */
+    public Exception getError(String id) {
+        return errors.get(id);
+    }
+
+    /**
+     * @return results by item id
+     */
+    public Map<String, T> getResults() {
+        return results;
+    }
+
+    /**
+     * @return failures by item id
+     */
+    public Map<String, Exception> getErrors() {
+        return errors;
+    }
+}
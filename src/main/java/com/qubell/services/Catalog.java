@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of applications and environments, available for an account, see {@link CatalogCache}
+ *
+ * @author Alex Krupnov
+ */
+public class Catalog {
+    private final List<Application> applications;
+    private final List<Environment> environments;
+    private final List<String> failedOrganizations;
+    private final long loadedAt;
+
+    private final Map<String, Application> applicationsById = new HashMap<String, Application>();
+    private final Map<String, Environment> environmentsById = new HashMap<String, Environment>();
+
+    private final TypeAheadIndex<Application> applicationsIndex;
+    private final TypeAheadIndex<Environment> environmentsIndex;
+
+    /**
+     * Inits catalog snapshot
+     *
+     * @param applications all applications of the account
+     * @param environments all environments of the account
+     * @param loadedAt     time of snapshot, milliseconds since epoch
+     */
+    public Catalog(List<Application> applications, List<Environment> environments, long loadedAt) {
+        this(applications, environments, new ArrayList<String>(), loadedAt);
+    }
+
+    /**
+     * Inits catalog snapshot, which may miss some organizations
+     *
+     * @param applications        applications of successfully listed organizations
+     * @param environments        environments of successfully listed organizations
+     * @param failedOrganizations descriptions of organizations which could not be listed
+     * @param loadedAt            time of snapshot, milliseconds since epoch
+     */
+    public Catalog(List<Application> applications, List<Environment> environments, List<String> failedOrganizations, long loadedAt) {
+        this.applications = Collections.unmodifiableList(applications);
+        this.environments = Collections.unmodifiableList(environments);
+        this.failedOrganizations = Collections.unmodifiableList(failedOrganizations);
+        this.loadedAt = loadedAt;
+
+        for (Application application : applications) {
+            applicationsById.put(application.getId(), application);
+        }
+        for (Environment environment : environments) {
+            environmentsById.put(environment.getId(), environment);
+        }
+
+        this.applicationsIndex = new TypeAheadIndex<Application>(applications);
+        this.environmentsIndex = new TypeAheadIndex<Environment>(environments);
+    }
+
+    /**
+     * @return token index of applications for typeahead queries
+     */
+    public TypeAheadIndex<Application> getApplicationsIndex() {
+        return applicationsIndex;
+    }
+
+    /**
+     * @return token index of environments for typeahead queries
+     */
+    public TypeAheadIndex<Environment> getEnvironmentsIndex() {
+        return environmentsIndex;
+    }
+
+    /**
+     * Looks up application by id
+     *
+     * @param id application id
+     * @return application or null when catalog does not contain it
+     */
+    public Application findApplication(String id) {
+        return applicationsById.get(id);
+    }
+
+    /**
+     * Looks up environment by id
+     *
+     * @param id environment id
+     * @return environment or null when catalog does not contain it
+     */
+    public Environment findEnvironment(String id) {
+        return environmentsById.get(id);
+    }
+
+    /**
+     * @return not null list of apps
+     */
+    public List<Application> getApplications() {
+        return applications;
+    }
+
+    /**
+     * @return not null list of environments
+     */
+    public List<Environment> getEnvironments() {
+        return environments;
+    }
+
+    /**
+     * Organizations which could not be listed when snapshot was taken
+     *
+     * @return not null list of "name (id): reason" descriptions
+     */
+    public List<String> getFailedOrganizations() {
+        return failedOrganizations;
+    }
+
+    /**
+     * @return time of snapshot, milliseconds since epoch
+     */
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services;
+
+import com.qubell.jenkinsci.plugins.qubell.Configuration;
+import com.qubell.services.exceptions.InvalidCredentialsException;
+import com.qubell.services.exceptions.NotAuthorizedException;
+import com.qubell.services.exceptions.ResourceNotFoundException;
+import com.qubell.services.exceptions.ServiceUnavailableException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Controller-wide TTL cache of applications and environments, keyed by credentials
+ * <p/>
+ * A catalog younger than TTL is returned as is. Once {@link #REFRESH_AHEAD_RATIO} of TTL passed, the cached catalog
+ * is still returned, but refreshed in background, so config pages rarely wait for the API.
+ * Expired or missing catalog is loaded synchronously.
+ *
+ * @author Alex Krupnov
+ */
+public class CatalogCache {
+    /**
+     * Part of TTL after which background refresh is triggered
+     */
+    static final double REFRESH_AHEAD_RATIO = 0.75;
+
+    private static final CatalogCache INSTANCE = new CatalogCache();
+
+    private final ConcurrentMap<String, CatalogEntry> entries = new ConcurrentHashMap<String, CatalogEntry>();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Qubell catalog refresh");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * @return the controller-wide cache
+     */
+    public static CatalogCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns catalog for account of given configuration, see {@link Configuration#getCatalogCacheTtl()}
+     *
+     * @param configuration plugin configuration
+     * @return catalog, possibly cached
+     * @throws InvalidCredentialsException when user credentials are invalid
+     * @throws NotAuthorizedException      when user is not authorized to list applications or environments
+     * @throws ResourceNotFoundException   when organization does not exist
+     * @throws ServiceUnavailableException when API calls are suspended
+     */
+    public Catalog getCatalog(Configuration configuration) throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException, ServiceUnavailableException {
+        long ttlMillis = TimeUnit.SECONDS.toMillis(configuration.getCatalogCacheTtl());
+        if (ttlMillis <= 0) {
+            return load(configuration);
+        }
+
+        CatalogEntry entry = getEntry(configuration);
+        Catalog catalog = entry.catalog;
+        long age = catalog != null ? System.currentTimeMillis() - catalog.getLoadedAt() : Long.MAX_VALUE;
+
+        if (age < ttlMillis) {
+            if (age >= ttlMillis * REFRESH_AHEAD_RATIO) {
+                refreshAhead(entry, configuration);
+            }
+            return catalog;
+        }
+
+        synchronized (entry) {
+            // Other thread might have loaded catalog while we were waiting
+            catalog = entry.catalog;
+            if (catalog != null && System.currentTimeMillis() - catalog.getLoadedAt() < ttlMillis) {
+                return catalog;
+            }
+
+            catalog = load(configuration);
+            entry.catalog = catalog;
+            return catalog;
+        }
+    }
+
+    /**
+     * Returns cached catalog without calling the API
+     *
+     * @param configuration plugin configuration
+     * @return catalog or null when nothing is cached or catalog has expired
+     */
+    public Catalog getCachedCatalog(Configuration configuration) {
+        CatalogEntry entry = entries.get(getKey(configuration));
+        Catalog catalog = entry != null ? entry.catalog : null;
+        if (catalog == null
+                || System.currentTimeMillis() - catalog.getLoadedAt() >= TimeUnit.SECONDS.toMillis(configuration.getCatalogCacheTtl())) {
+            return null;
+        }
+        return catalog;
+    }
+
+    /**
+     * Starts loading catalog in background, unless it is already cached or being loaded
+     *
+     * @param configuration plugin configuration
+     */
+    public void preload(Configuration configuration) {
+        if (getCachedCatalog(configuration) == null) {
+            refreshAhead(getEntry(configuration), configuration);
+        }
+    }
+
+    /**
+     * Drops all cached catalogs
+     */
+    public void invalidate() {
+        entries.clear();
+    }
+
+    /**
+     * Drops catalog cached for account of given configuration
+     *
+     * @param configuration plugin configuration
+     */
+    public void invalidate(Configuration configuration) {
+        entries.remove(getKey(configuration));
+    }
+
+    /**
+     * Loads catalog via API
+     *
+     * @param configuration plugin configuration
+     * @return fresh catalog
+     */
+    protected Catalog load(Configuration configuration) throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException, ServiceUnavailableException {
+        QubellFacade facade = new QubellFacadeImpl(configuration);
+
+        CatalogListing<Application> applications = facade.listAllApplications();
+        CatalogListing<Environment> environments = facade.listAllEnvironments();
+        // Nothing could be listed, most likely the account itself is broken, so reporting the real cause instead of caching an empty catalog
+        List<Application> listedApplications = applications.getListedItems();
+        List<Environment> listedEnvironments = environments.getListedItems();
+
+        List<String> failedOrganizations = new ArrayList<String>();
+        describeFailures(applications, failedOrganizations);
+        describeFailures(environments, failedOrganizations);
+
+        return new Catalog(listedApplications, listedEnvironments, failedOrganizations, System.currentTimeMillis());
+    }
+
+    private void describeFailures(CatalogListing<?> listing, List<String> descriptions) {
+        for (Map.Entry<Organization, String> failure : listing.getFailedOrganizations().entrySet()) {
+            String description = String.format("%s (%s): %s", failure.getKey().getName(), failure.getKey().getId(), failure.getValue());
+            if (!descriptions.contains(description)) {
+                descriptions.add(description);
+            }
+        }
+    }
+
+    private void refreshAhead(final CatalogEntry entry, final Configuration configuration) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        refreshExecutor.execute(new Runnable() {
+            public void run() {
+                try {
+                    entry.catalog = load(configuration);
+                } catch (Exception e) {
+                    // Keeping current catalog, it will be loaded synchronously once expired
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            }
+        });
+    }
+
+    private CatalogEntry getEntry(Configuration configuration) {
+        String key = getKey(configuration);
+        CatalogEntry entry = entries.get(key);
+        if (entry == null) {
+            CatalogEntry created = new CatalogEntry();
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+            }
+        }
+        return entry;
+    }
+
+    private String getKey(Configuration configuration) {
+        return configuration.getUrl() + "\n" + configuration.getLogin() + "\n" + configuration.getPassword();
+    }
+
+    private static class CatalogEntry {
+        private volatile Catalog catalog;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services;
+
+import com.qubell.services.exceptions.InvalidCredentialsException;
+import com.qubell.services.exceptions.NotAuthorizedException;
+import com.qubell.services.exceptions.QubellServiceException;
+import com.qubell.services.exceptions.ResourceNotFoundException;
+import com.qubell.services.exceptions.ServiceUnavailableException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of listing applications or environments across organizations
+ * Contains items of all organizations which were listed successfully and failures of the rest
+ *
+ * @param <T> type of listed items
+ * @author Alex Krupnov
+ */
+public class CatalogListing<T> {
+    private final List<T> items = new ArrayList<T>();
+    private final Map<Organization, String> failedOrganizations = new LinkedHashMap<Organization, String>();
+    private QubellServiceException firstError;
+
+    /**
+     * Adds items of successfully listed organization
+     *
+     * @param organizationItems items to add
+     */
+    public void addItems(List<T> organizationItems) {
+        items.addAll(organizationItems);
+    }
+
+    /**
+     * Records organization which could not be listed
+     *
+     * @param organization failed organization
+     * @param reason       failure description
+     * @param error        service error, if failure was caused by one
+     */
+    public void addFailure(Organization organization, String reason, QubellServiceException error) {
+        failedOrganizations.put(organization, reason);
+        if (firstError == null && error != null) {
+            firstError = error;
+        }
+    }
+
+    /**
+     * @return not null list of items from all successfully listed organizations
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Organizations which could not be listed
+     *
+     * @return map of organization to failure description
+     */
+    public Map<Organization, String> getFailedOrganizations() {
+        return Collections.unmodifiableMap(failedOrganizations);
+    }
+
+    /**
+     * First service error among failed organizations
+     *
+     * @return error or null
+     */
+    public QubellServiceException getFirstError() {
+        return firstError;
+    }
+
+    /**
+     * Returns listed items, failing only when nothing could be listed at all
+     * Credential, authorization and not found errors are rethrown as is, any other failure is reported as
+     * {@link ServiceUnavailableException}, so a failed listing is never taken for an empty one
+     *
+     * @return not null list of items from all successfully listed organizations
+     */
+    public List<T> getListedItems() throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException, ServiceUnavailableException {
+        if (!items.isEmpty() || failedOrganizations.isEmpty()) {
+            return items;
+        }
+
+        if (firstError instanceof InvalidCredentialsException) {
+            throw (InvalidCredentialsException) firstError;
+        }
+        if (firstError instanceof NotAuthorizedException) {
+            throw (NotAuthorizedException) firstError;
+        }
+        if (firstError instanceof ResourceNotFoundException) {
+            throw (ResourceNotFoundException) firstError;
+        }
+        if (firstError instanceof ServiceUnavailableException) {
+            throw (ServiceUnavailableException) firstError;
+        }
+        Map.Entry<Organization, String> failure = failedOrganizations.entrySet().iterator().next();
+        String message = firstError != null
+                ? firstError.getMessage()
+                : String.format("Unable to list organization %s: %s", failure.getKey().getName(), failure.getValue());
+        throw new ServiceUnavailableException(message, 0, firstError);
+    }
+}
@@ -31,6 +31,7 @@ public class InstanceStatus {
     private String errorMessage;
     private Map<String, Object> returnValues;
     private Application application;
+    private Environment environment;
 
     /**
      * @return instance of app, owning the status data
@@ -156,6 +157,24 @@ public class InstanceStatus {
         this.application = application;
     }
 
+    /**
+     * Environment, instance is running in
+     *
+     * @return environment information, null when API did not return it
+     */
+    public Environment getEnvironment() {
+        return environment;
+    }
+
+    /**
+     * Sets instance environment
+     *
+     * @param environment environment value
+     */
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services;
+
+/**
+ * Outcome of a single launch among several ones, see {@link QubellFacade#launchInstances}
+ * Contains either launched instance or the error launch failed with
+ *
+ * @author Alex Krupnov
+ */
+public class LaunchResult {
+    private final InstanceSpecification specification;
+    private final Instance instance;
+    private final Exception error;
+
+    /**
+     * Initializes result of successful launch
+     *
+     * @param specification launched specification
+     * @param instance      launched instance
+     */
+    public LaunchResult(InstanceSpecification specification, Instance instance) {
+        this(specification, instance, null);
+    }
+
+    /**
+     * Initializes result of failed launch
+     *
+     * @param specification specification which failed to launch
+     * @param error         launch failure
+     */
+    public LaunchResult(InstanceSpecification specification, Exception error) {
+        this(specification, null, error);
+    }
+
+    private LaunchResult(InstanceSpecification specification, Instance instance, Exception error) {
+        this.specification = specification;
+        this.instance = instance;
+        this.error = error;
+    }
+
+    /**
+     * @return specification used for the launch
+     */
+    public InstanceSpecification getSpecification() {
+        return specification;
+    }
+
+    /**
+     * @return launched instance or null when launch failed
+     */
+    public Instance getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return launch failure or null when instance was launched
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * @return true when instance was launched
+     */
+    public boolean isLaunched() {
+        return instance != null;
+    }
+}
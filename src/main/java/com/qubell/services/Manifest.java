@@ -16,6 +16,10 @@
 
 package com.qubell.services;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * Qubell application manifes
  * @author Alex Krupnov
@@ -31,10 +35,25 @@ public class Manifest {
         this.content = content;
     }
 
+    /**
+     * Initializes manifest which provides content on its own, see {@link #openStream()}
+     */
+    protected Manifest() {
+    }
+
     /**
      * @return yaml manifest content
      */
     public String getContent() {
         return content;
     }
+
+    /**
+     * Opens manifest content for upload, called for every attempt of the call
+     * @return new stream with yaml manifest content
+     * @throws IOException when content could not be read
+     */
+    public InputStream openStream() throws IOException {
+        return new ByteArrayInputStream(getContent().getBytes("UTF-8"));
+    }
 }
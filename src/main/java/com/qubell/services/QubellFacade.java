@@ -18,6 +18,7 @@ package com.qubell.services;
 
 import com.qubell.services.exceptions.*;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -36,7 +37,18 @@ public interface QubellFacade {
      * @throws InvalidInputException when required version of manifest does not exist
      * @throws NotAuthorizedException when user is not authorized to launch the app
      */
-    Instance launchInstance(InstanceSpecification instanceSpecification, LaunchSettings launchSettings) throws InvalidCredentialsException, NotAuthorizedException, InvalidInputException, ResourceNotFoundException;
+    Instance launchInstance(InstanceSpecification instanceSpecification, LaunchSettings launchSettings) throws InvalidCredentialsException, NotAuthorizedException, InvalidInputException, ResourceNotFoundException, ServiceUnavailableException;
+
+    /**
+     * Launches several Qubell app instances at once, with the same launch settings
+     * A failed launch does not stop the others, its error is reported in the result
+     * When interrupted, launches in flight are let finish and reported, the rest fail, and interrupt flag stays set
+     * @param instanceSpecifications instance specifications for launch
+     * @param launchSettings additional launch settings
+     * @param concurrency maximum amount of launch calls made at once
+     * @return results in order of specifications, see {@link LaunchResult}
+     */
+    List<LaunchResult> launchInstances(List<InstanceSpecification> instanceSpecifications, LaunchSettings launchSettings, int concurrency);
 
     /**
      * Updates application manifest
@@ -48,7 +60,7 @@ public interface QubellFacade {
      * @throws InvalidInputException when manifest is invalid
      * @throws NotAuthorizedException when user is not authorized to access the app
      */
-    Integer updateManifest(Application application, Manifest manifest) throws InvalidCredentialsException, InvalidInputException, ResourceNotFoundException, NotAuthorizedException;
+    Integer updateManifest(Application application, Manifest manifest) throws InvalidCredentialsException, InvalidInputException, ResourceNotFoundException, NotAuthorizedException, ServiceUnavailableException;
 
     /**
      * Gets status of instance, see {@link InstanceStatus}
@@ -56,7 +68,16 @@ public interface QubellFacade {
      * @return valid instance status object
      * @throws InvalidCredentialsException when credentials are invalid
      */
-    InstanceStatus getStatus(Instance instance) throws InvalidCredentialsException, ResourceNotFoundException, NotAuthorizedException;
+    InstanceStatus getStatus(Instance instance) throws InvalidCredentialsException, ResourceNotFoundException, NotAuthorizedException, ServiceUnavailableException;
+
+    /**
+     * Gets statuses of several instances at once, see {@link InstanceStatus}
+     * @param instances instances to query status
+     * @return statuses by instance id, or the error status of an instance could not be fetched with,
+     * {@link ResourceNotFoundException} for instances which do not exist
+     * @throws InvalidCredentialsException when credentials are invalid
+     */
+    BatchResult<InstanceStatus> getStatuses(Collection<Instance> instances) throws InvalidCredentialsException, NotAuthorizedException, ServiceUnavailableException;
 
     /**
      * Runs a command on instance with extra parameter
@@ -66,7 +87,27 @@ public interface QubellFacade {
      * @throws InvalidCredentialsException when credentials are invalid
      * @throws InvalidInputException when command is not supported by instance
      */
-    void runCommand(Instance instance, String commandName, Map<String, Object> parameters) throws InvalidCredentialsException, InvalidInputException, NotAuthorizedException, ResourceNotFoundException, InstanceBusyException;
+    void runCommand(Instance instance, String commandName, Map<String, Object> parameters) throws InvalidCredentialsException, InvalidInputException, NotAuthorizedException, ResourceNotFoundException, InstanceBusyException, ServiceUnavailableException;
+
+    /**
+     * Runs the same command on several instances at once
+     * A failed call does not stop the others, its error is reported in the result
+     * @param instances valid instances
+     * @param commandName name of command/workflow
+     * @param parameters extra parameters for instance workflow
+     * @param concurrency maximum amount of command calls made at once
+     * @return errors by instance id, empty when command was accepted by every instance
+     */
+    Map<String, Exception> runCommands(Collection<Instance> instances, String commandName, Map<String, Object> parameters, int concurrency);
+
+    /**
+     * Gets a list of organizations, available for current account
+     * Being a single lightweight call, it is also suitable for credentials check
+     * @return list of organizations
+     * @throws InvalidCredentialsException when user credentials are invalid
+     * @throws NotAuthorizedException when user is not authorized to list organizations
+     */
+    List<Organization> getOrganizations() throws InvalidCredentialsException, NotAuthorizedException, ServiceUnavailableException;
 
     /**
      * Gets a list of all applications, available for current account
@@ -75,7 +116,7 @@ public interface QubellFacade {
      * @throws  NotAuthorizedException when user is not authorized to list applications
      * @throws ResourceNotFoundException when organization does not exist
      */
-    List<Application> getAllApplications() throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException;
+    List<Application> getAllApplications() throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException, ServiceUnavailableException;
 
     /**
      * Gets a list of all environments, available for current account
@@ -84,5 +125,23 @@ public interface QubellFacade {
      * @throws  NotAuthorizedException when user is not authorized to list environments
      * @throws ResourceNotFoundException when organization does not exist
      */
-    List<Environment> getAllEnvironments() throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException;
+    List<Environment> getAllEnvironments() throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException, ServiceUnavailableException;
+
+    /**
+     * Lists applications of all organizations, available for current account
+     * Organizations which could not be listed are reported in result instead of failing the whole listing
+     * @return listing with apps and failed organizations
+     * @throws InvalidCredentialsException when user credentials are invalid
+     * @throws NotAuthorizedException when user is not authorized to list organizations
+     */
+    CatalogListing<Application> listAllApplications() throws InvalidCredentialsException, NotAuthorizedException, ServiceUnavailableException;
+
+    /**
+     * Lists environments of all organizations, available for current account
+     * Organizations which could not be listed are reported in result instead of failing the whole listing
+     * @return listing with environments and failed organizations
+     * @throws InvalidCredentialsException when user credentials are invalid
+     * @throws NotAuthorizedException when user is not authorized to list organizations
+     */
+    CatalogListing<Environment> listAllEnvironments() throws InvalidCredentialsException, NotAuthorizedException, ServiceUnavailableException;
 }
@@ -20,27 +20,58 @@ import com.qubell.jenkinsci.plugins.qubell.Configuration;
 import com.qubell.services.exceptions.*;
 import com.qubell.services.toa.ApplicationTOA;
 import com.qubell.services.toa.EnvironmentTOA;
-import com.qubell.services.toa.InstanceStatusTOA;
+import com.qubell.services.toa.OrganizationTOA;
 import com.qubell.services.ws.*;
 import com.qubell.services.ws.Organization;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Joining multiple restfull web services, see {@link InstanceService} and {@link ApplicationService}
  * @author Alex Krupnov
  */
 public class QubellFacadeImpl implements QubellFacade {
+    /**
+     * Amount of threads making parallel calls (catalog listing, bulk launches and commands), shared by all builds
+     */
+    static final int PARALLEL_CALL_THREADS = 16;
+
+    private static final ExecutorService CALL_EXECUTOR = Executors.newFixedThreadPool(PARALLEL_CALL_THREADS, new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Qubell parallel call #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     private Configuration configuration;
+    private RetryBudget retryBudget;
 
     /**
      * Gets an organization service implementation
      * @return instance of org service
      */
     protected OrganizationService getOrganizationService(){
-        return new OrganizationServiceWsImpl(configuration);
+        return new OrganizationServiceWsImpl(configuration, retryBudget);
     }
 
     /**
@@ -48,7 +79,7 @@ public class QubellFacadeImpl implements QubellFacade {
      * @return instance of service
      */
     protected InstanceService getInstanceService(){
-        return new InstanceServiceWsImpl(configuration);
+        return new InstanceServiceWsImpl(configuration, retryBudget);
     }
 
     /**
@@ -56,7 +87,7 @@ public class QubellFacadeImpl implements QubellFacade {
      * @return instance of service
      */
     protected ApplicationService getApplicationService(){
-        return new ApplicationServiceWsImpl(configuration);
+        return new ApplicationServiceWsImpl(configuration, retryBudget);
     }
 
     /**
@@ -64,77 +95,397 @@ public class QubellFacadeImpl implements QubellFacade {
      * @param configuration instance of configuratio
      */
     public QubellFacadeImpl(Configuration configuration) {
+        this(configuration, new RetryBudget(configuration.getBuildRetryBudget()));
+    }
+
+    /**
+     * A configuration object for Qubell plugin and retry budget, shared by all calls made for a build
+     * @param configuration instance of configuration
+     * @param retryBudget retries left for the build, see {@link RetryBudget}
+     */
+    public QubellFacadeImpl(Configuration configuration, RetryBudget retryBudget) {
         this.configuration = configuration;
+        this.retryBudget = retryBudget;
     }
 
     /**
      * {@inheritDoc}
      */
-    public Instance launchInstance(InstanceSpecification instanceSpecification, LaunchSettings launchSettings) throws InvalidCredentialsException, NotAuthorizedException, InvalidInputException, ResourceNotFoundException {
-        LaunchInstanceResponse instanceResponse = getApplicationService().launch(
-                instanceSpecification.getApplication().getId(),
-                instanceSpecification.getInstanceName(),
-                instanceSpecification.getVersion(),
-                launchSettings.getEnvironment() != null ? launchSettings.getEnvironment().getId() : null,
-                launchSettings.getDestroyInterval(),
-                launchSettings.getParameters()
-        );
+    public Instance launchInstance(InstanceSpecification instanceSpecification, LaunchSettings launchSettings) throws InvalidCredentialsException, NotAuthorizedException, InvalidInputException, ResourceNotFoundException, ServiceUnavailableException {
+        try {
+            LaunchInstanceResponse instanceResponse = getApplicationService().launch(
+                    instanceSpecification.getApplication().getId(),
+                    instanceSpecification.getInstanceName(),
+                    instanceSpecification.getVersion(),
+                    launchSettings.getEnvironment() != null ? launchSettings.getEnvironment().getId() : null,
+                    launchSettings.getDestroyInterval(),
+                    launchSettings.getParameters()
+            );
 
-        return new Instance(instanceResponse.getId(), instanceSpecification.getInstanceName());
+            return new Instance(instanceResponse.getId(), instanceSpecification.getInstanceName());
+        } catch (CircuitOpenException e) {
+            throw unavailable(e);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
-    public Integer updateManifest(Application application, Manifest manifest) throws InvalidCredentialsException, InvalidInputException, ResourceNotFoundException, NotAuthorizedException {
-        return getApplicationService().updateManifest(application.getId(), manifest.getContent()).getVersion();
+    public List<LaunchResult> launchInstances(List<InstanceSpecification> instanceSpecifications, final LaunchSettings launchSettings, int concurrency) {
+        List<Callable<Instance>> calls = new ArrayList<Callable<Instance>>();
+        for (final InstanceSpecification specification : instanceSpecifications) {
+            calls.add(new Callable<Instance>() {
+                public Instance call() throws Exception {
+                    return launchInstance(specification, launchSettings);
+                }
+            });
+        }
+
+        List<LaunchResult> results = new ArrayList<LaunchResult>();
+        List<Future<Instance>> futures = invokeAll(calls, concurrency, Long.MAX_VALUE, true);
+
+        for (int i = 0; i < instanceSpecifications.size(); i++) {
+            InstanceSpecification specification = instanceSpecifications.get(i);
+            try {
+                results.add(new LaunchResult(specification, getResult(futures.get(i))));
+            } catch (Exception e) {
+                results.add(new LaunchResult(specification, getFailure(e)));
+            }
+        }
+
+        return results;
     }
 
     /**
      * {@inheritDoc}
      */
-    public InstanceStatus getStatus(Instance instance) throws InvalidCredentialsException, ResourceNotFoundException, NotAuthorizedException {
-        return new InstanceStatusTOA().fromWsResponse(getInstanceService().getStatus(instance.getId()));
+    public Integer updateManifest(Application application, final Manifest manifest) throws InvalidCredentialsException, InvalidInputException, ResourceNotFoundException, NotAuthorizedException, ServiceUnavailableException {
+        try {
+            RequestBody body = new RequestBody() {
+                public InputStream open() throws IOException {
+                    return manifest.openStream();
+                }
+            };
+            return getApplicationService().updateManifest(application.getId(), body).getVersion();
+        } catch (CircuitOpenException e) {
+            throw unavailable(e);
+        }
     }
 
-    public List<Application> getAllApplications() throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException {
-        List<Application> applications = new ArrayList<Application>();
-        List<Organization> organizations = getOrganizations();
+    /**
+     * {@inheritDoc}
+     */
+    public InstanceStatus getStatus(Instance instance) throws InvalidCredentialsException, ResourceNotFoundException, NotAuthorizedException, ServiceUnavailableException {
+        try {
+            return getInstanceService().getStatus(instance.getId());
+        } catch (CircuitOpenException e) {
+            throw unavailable(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public BatchResult<InstanceStatus> getStatuses(Collection<Instance> instances) throws InvalidCredentialsException, NotAuthorizedException, ServiceUnavailableException {
+        try {
+            List<String> instanceIds = new ArrayList<String>();
+            for (Instance instance : instances) {
+                instanceIds.add(instance.getId());
+            }
+
+            BatchResult<InstanceStatus> fetched = getInstanceService().getStatuses(instanceIds);
+            BatchResult<InstanceStatus> statuses = new BatchResult<InstanceStatus>();
+            for (Map.Entry<String, InstanceStatus> entry : fetched.getResults().entrySet()) {
+                statuses.put(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, Exception> entry : fetched.getErrors().entrySet()) {
+                Exception error = entry.getValue();
+                statuses.fail(entry.getKey(), error instanceof CircuitOpenException ? unavailable((CircuitOpenException) error) : error);
+            }
+            return statuses;
+        } catch (CircuitOpenException e) {
+            throw unavailable(e);
+        }
+    }
 
-        OrganizationService organizationService = getOrganizationService();
+    /**
+     * {@inheritDoc}
+     */
+    public Map<String, Exception> runCommands(Collection<Instance> instances, final String commandName, final Map<String, Object> parameters, int concurrency) {
+        List<Instance> targets = new ArrayList<Instance>(instances);
+        List<Callable<Void>> calls = new ArrayList<Callable<Void>>();
+        for (final Instance instance : targets) {
+            calls.add(new Callable<Void>() {
+                public Void call() throws Exception {
+                    runCommand(instance, commandName, parameters);
+                    return null;
+                }
+            });
+        }
 
-        ApplicationTOA appTOA = new ApplicationTOA();
+        Map<String, Exception> errors = new HashMap<String, Exception>();
+        List<Future<Void>> futures = invokeAll(calls, concurrency, Long.MAX_VALUE, true);
 
-        for(Organization org : organizations){
-            applications.addAll(appTOA.fromWs(organizationService.listApplications(org), org));
+        for (int i = 0; i < targets.size(); i++) {
+            try {
+                getResult(futures.get(i));
+            } catch (Exception e) {
+                errors.put(targets.get(i).getId(), getFailure(e));
+            }
         }
 
-        return applications;
+        return errors;
     }
 
-    public List<Environment> getAllEnvironments() throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException {
-        List<Environment> environments = new ArrayList<Environment>();
-        List<Organization> organizations = getOrganizations();
+    /**
+     * Runs calls on the shared executor, up to concurrency at once, and waits for them until the deadline
+     * Further calls are started as earlier ones complete, so a single invocation never takes more than its share of threads.
+     * On interrupt no more calls are started; calls in flight are either let finish, so nothing the server already did
+     * (e.g. a launched instance) is lost, or left running when {@code finishOnInterrupt} is false.
+     * Interrupt flag is restored afterwards
+     *
+     * @return futures in order of calls, null for calls which were not started
+     */
+    private static <T> List<Future<T>> invokeAll(List<Callable<T>> calls, int concurrency, long deadline, boolean finishOnInterrupt) {
+        List<Future<T>> futures = new ArrayList<Future<T>>();
+        CompletionService<T> completionService = new ExecutorCompletionService<T>(CALL_EXECUTOR);
+        int limit = Math.max(1, concurrency);
+        int completed = 0;
+        boolean interrupted = false;
 
-        OrganizationService organizationService = getOrganizationService();
+        while (true) {
+            while (!interrupted && futures.size() < calls.size() && futures.size() - completed < limit) {
+                futures.add(completionService.submit(calls.get(futures.size())));
+            }
+            if (completed == futures.size()) {
+                break;
+            }
 
-        EnvironmentTOA envTOA = new EnvironmentTOA();
+            try {
+                if (interrupted || deadline == Long.MAX_VALUE) {
+                    completionService.take();
+                } else {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0 || completionService.poll(remaining, TimeUnit.MILLISECONDS) == null) {
+                        break;
+                    }
+                }
+                completed++;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                if (!finishOnInterrupt) {
+                    break;
+                }
+            }
+        }
 
-        for(Organization org : organizations){
-            environments.addAll(envTOA.fromWs(organizationService.listEnvironments(org), org));
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
+        while (futures.size() < calls.size()) {
+            futures.add(null);
+        }
+        return futures;
+    }
 
-        return environments;
+    /**
+     * Gets result of a call started by {@link #invokeAll}
+     */
+    private static <T> T getResult(Future<T> future) throws Exception {
+        if (future == null) {
+            throw new InterruptedException("Not started, since build was interrupted");
+        }
+        return future.get();
     }
 
-    private List<com.qubell.services.ws.Organization> getOrganizations() throws InvalidCredentialsException, NotAuthorizedException {
+    /**
+     * Unwraps failure of a completed call
+     */
+    private static Exception getFailure(Exception e) {
+        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+        return cause instanceof Exception ? (Exception) cause : e;
+    }
+
+    /**
+     * Maps suspended API calls to service exception, so callers handle outages with the rest of API failures
+     */
+    private static ServiceUnavailableException unavailable(CircuitOpenException e) {
+        return new ServiceUnavailableException(e.getMessage(), e.getRetryAfterMillis(), e);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<com.qubell.services.Organization> getOrganizations() throws InvalidCredentialsException, NotAuthorizedException, ServiceUnavailableException {
+        try {
+            List<com.qubell.services.Organization> organizations = new ArrayList<com.qubell.services.Organization>();
+            OrganizationTOA orgTOA = new OrganizationTOA();
+
+            for (Organization org : listOrganizations()) {
+                organizations.add(orgTOA.fromWs(org));
+            }
+
+            return organizations;
+        } catch (CircuitOpenException e) {
+            throw unavailable(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Application> getAllApplications() throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException, ServiceUnavailableException {
+        try {
+            if (configuration.isParallelCatalogFetch()) {
+                return listAllApplications().getListedItems();
+            }
+
+            List<Application> applications = new ArrayList<Application>();
+            List<Organization> organizations = listOrganizations();
+
+            OrganizationService organizationService = getOrganizationService();
+
+            ApplicationTOA appTOA = new ApplicationTOA();
+
+            for(Organization org : organizations){
+                applications.addAll(appTOA.fromWs(organizationService.listApplications(org), org));
+            }
+
+            return applications;
+        } catch (CircuitOpenException e) {
+            throw unavailable(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Environment> getAllEnvironments() throws InvalidCredentialsException, NotAuthorizedException, ResourceNotFoundException, ServiceUnavailableException {
+        try {
+            if (configuration.isParallelCatalogFetch()) {
+                return listAllEnvironments().getListedItems();
+            }
+
+            List<Environment> environments = new ArrayList<Environment>();
+            List<Organization> organizations = listOrganizations();
+
+            OrganizationService organizationService = getOrganizationService();
+
+            EnvironmentTOA envTOA = new EnvironmentTOA();
+
+            for(Organization org : organizations){
+                environments.addAll(envTOA.fromWs(organizationService.listEnvironments(org), org));
+            }
+
+            return environments;
+        } catch (CircuitOpenException e) {
+            throw unavailable(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public CatalogListing<Application> listAllApplications() throws InvalidCredentialsException, NotAuthorizedException, ServiceUnavailableException {
+        try {
+            return listAcrossOrganizations(new OrganizationLister<Application>() {
+                public List<Application> list(OrganizationService service, Organization org) throws QubellServiceException {
+                    return new ApplicationTOA().fromWs(service.listApplications(org), org);
+                }
+            });
+        } catch (CircuitOpenException e) {
+            throw unavailable(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public CatalogListing<Environment> listAllEnvironments() throws InvalidCredentialsException, NotAuthorizedException, ServiceUnavailableException {
+        try {
+            return listAcrossOrganizations(new OrganizationLister<Environment>() {
+                public List<Environment> list(OrganizationService service, Organization org) throws QubellServiceException {
+                    return new EnvironmentTOA().fromWs(service.listEnvironments(org), org);
+                }
+            });
+        } catch (CircuitOpenException e) {
+            throw unavailable(e);
+        }
+    }
+
+    /**
+     * Lists items of every organization, fetching up to {@link Configuration#getCatalogFetchConcurrency()} organizations at once
+     * Organizations which fail or are not listed within {@link Configuration#getCatalogFetchTimeout()} are reported in the listing
+     */
+    private <T> CatalogListing<T> listAcrossOrganizations(final OrganizationLister<T> lister) throws InvalidCredentialsException, NotAuthorizedException {
+        List<Organization> organizations = listOrganizations();
+        CatalogListing<T> listing = new CatalogListing<T>();
+        if (organizations.isEmpty()) {
+            return listing;
+        }
+
+        final OrganizationService organizationService = getOrganizationService();
+        int concurrency = configuration.isParallelCatalogFetch() ? Math.max(1, configuration.getCatalogFetchConcurrency()) : 1;
+        // Single deadline for the whole listing, so organizations waiting for a thread are not given a time limit of their own
+        long deadline = System.currentTimeMillis() + configuration.getCatalogFetchTimeout() * 1000L;
+
+        List<Callable<List<T>>> calls = new ArrayList<Callable<List<T>>>();
+        for (final Organization org : organizations) {
+            calls.add(new Callable<List<T>>() {
+                public List<T> call() throws Exception {
+                    return lister.list(organizationService, org);
+                }
+            });
+        }
+        List<Future<List<T>>> futures = invokeAll(calls, concurrency, deadline, false);
+        boolean interrupted = Thread.currentThread().isInterrupted();
+
+        for (int i = 0; i < organizations.size(); i++) {
+            com.qubell.services.Organization org = new OrganizationTOA().fromWs(organizations.get(i));
+            Future<List<T>> future = futures.get(i);
+            if (future == null || !future.isDone()) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+                listing.addFailure(org, interrupted ? "Interrupted" : "Timed out", null);
+                continue;
+            }
+            try {
+                listing.addItems(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof CircuitOpenException ? unavailable((CircuitOpenException) e.getCause()) : e.getCause();
+                listing.addFailure(org, String.valueOf(cause.getMessage()),
+                        cause instanceof QubellServiceException ? (QubellServiceException) cause : null);
+            } catch (CancellationException e) {
+                listing.addFailure(org, "Cancelled", null);
+            } catch (InterruptedException e) {
+                // Done futures do not block
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return listing;
+    }
+
+    private List<com.qubell.services.ws.Organization> listOrganizations() throws InvalidCredentialsException, NotAuthorizedException {
         return getOrganizationService().listOrganizations();
     }
 
     /**
      * {@inheritDoc}
      */
-    public void runCommand(Instance instance, String commandName, Map<String, Object> parameters) throws InvalidCredentialsException, InvalidInputException, NotAuthorizedException, ResourceNotFoundException, InstanceBusyException {
-        getInstanceService().runCommand(instance.getId(), commandName, parameters);
+    public void runCommand(Instance instance, String commandName, Map<String, Object> parameters) throws InvalidCredentialsException, InvalidInputException, NotAuthorizedException, ResourceNotFoundException, InstanceBusyException, ServiceUnavailableException {
+        try {
+            getInstanceService().runCommand(instance.getId(), commandName, parameters);
+        } catch (CircuitOpenException e) {
+            throw unavailable(e);
+        }
+    }
+
+    /**
+     * Lists items of a single organization
+     */
+    private interface OrganizationLister<T> {
+        List<T> list(OrganizationService service, Organization org) throws QubellServiceException;
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory token index of {@link TypeAheadDatum}s, serving prefix queries on server side
+ * <p/>
+ * Datum matches the query when every word of the query is a prefix of one of datum tokens,
+ * which is the same rule typeahead.js applies to local datasets.
+ *
+ * @author Alex Krupnov
+ */
+public class TypeAheadIndex<T extends TypeAheadDatum> {
+    private final List<T> datums;
+    private final TreeMap<String, Set<T>> tokens = new TreeMap<String, Set<T>>();
+
+    /**
+     * Builds index of given datums
+     *
+     * @param datums datums to be indexed, their order is kept for empty queries
+     */
+    public TypeAheadIndex(Collection<T> datums) {
+        this.datums = new ArrayList<T>(datums);
+
+        for (T datum : this.datums) {
+            for (String token : datum.getTokens()) {
+                String normalized = normalize(token);
+                if (normalized.length() == 0) {
+                    continue;
+                }
+                Set<T> tokenDatums = tokens.get(normalized);
+                if (tokenDatums == null) {
+                    tokenDatums = new LinkedHashSet<T>();
+                    tokens.put(normalized, tokenDatums);
+                }
+                tokenDatums.add(datum);
+            }
+        }
+    }
+
+    /**
+     * Finds datums matching the query
+     * Matches are ranked by the token matching the first query word, in alphabetical order of tokens,
+     * datums sharing that token keep indexing order. Empty query returns datums in indexing order
+     *
+     * @param query free text query, empty query matches all datums
+     * @param limit maximum number of datums to return
+     * @return matching datums in rank order, no more than limit
+     */
+    public List<T> search(String query, int limit) {
+        List<T> result = new ArrayList<T>();
+        if (limit <= 0) {
+            return result;
+        }
+
+        String[] words = query != null ? normalize(query).split("\\s+") : new String[0];
+        if (words.length == 0 || words[0].length() == 0) {
+            return new ArrayList<T>(datums.subList(0, Math.min(limit, datums.size())));
+        }
+
+        Set<T> matches = findByPrefix(words[0]);
+        for (int i = 1; i < words.length && !matches.isEmpty(); i++) {
+            matches.retainAll(findByPrefix(words[i]));
+        }
+
+        Iterator<T> iterator = matches.iterator();
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * @return number of indexed datums
+     */
+    public int size() {
+        return datums.size();
+    }
+
+    private Set<T> findByPrefix(String prefix) {
+        Set<T> matches = new LinkedHashSet<T>();
+        // Every token starting with prefix sorts between prefix itself and prefix followed by the highest char
+        SortedMap<String, Set<T>> range = tokens.subMap(prefix, prefix + Character.MAX_VALUE);
+        for (Set<T> tokenDatums : range.values()) {
+            matches.addAll(tokenDatums);
+        }
+        return matches;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ENGLISH);
+    }
+}
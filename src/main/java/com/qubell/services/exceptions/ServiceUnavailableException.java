@@ -0,0 +1,38 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.exceptions;
+
+/**
+ * Thrown when Qubell API is temporarily unavailable: calls to it are suspended, or nothing could be listed
+ * Callers able to wait may retry after {@link #getRetryAfterMillis()}, which is 0 when the delay is unknown
+ * @author Alex Krupnov
+ */
+public class ServiceUnavailableException extends QubellServiceException {
+    private final long retryAfterMillis;
+
+    public ServiceUnavailableException(String message, long retryAfterMillis, Throwable cause) {
+        super(message, cause);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return time until API calls may be attempted again
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
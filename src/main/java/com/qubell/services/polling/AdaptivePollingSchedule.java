@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services.polling;
+
+import com.qubell.services.InstanceStatus;
+import com.qubell.services.Workflow;
+import com.qubell.services.WorkflowStep;
+import com.qubell.services.WorkflowStepStatus;
+
+/**
+ * Polling schedule driven by workflow progress
+ * <ul>
+ * <li>polls with minimal interval right after subscription and whenever status changes</li>
+ * <li>polls with minimal interval when an executing step is close to completion</li>
+ * <li>otherwise doubles the interval on each unchanged poll, up to the maximum</li>
+ * </ul>
+ *
+ * @author Alex Krupnov
+ */
+public class AdaptivePollingSchedule implements PollingSchedule {
+    /**
+     * Length of fast polling phase after subscription
+     */
+    static final long WARM_UP_MILLIS = 30 * 1000;
+
+    /**
+     * Step progress (percent) considered close to completion
+     */
+    static final int NEAR_COMPLETION_PERCENT = 90;
+
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final long startedAt;
+
+    private long currentIntervalMillis;
+    private InstanceStatus previousStatus;
+
+    /**
+     * @param minIntervalMillis lower bound of polling interval in milliseconds
+     * @param maxIntervalMillis upper bound of polling interval in milliseconds
+     */
+    public AdaptivePollingSchedule(long minIntervalMillis, long maxIntervalMillis) {
+        this.minIntervalMillis = Math.max(MIN_INTERVAL_MILLIS, minIntervalMillis);
+        this.maxIntervalMillis = Math.max(this.minIntervalMillis, maxIntervalMillis);
+        this.currentIntervalMillis = this.minIntervalMillis;
+        this.startedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getInitialDelay() {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized long getNextDelay(InstanceStatus status) {
+        boolean changed = status != null && !status.equals(previousStatus);
+        if (status != null) {
+            previousStatus = status;
+        }
+
+        if (changed || isWarmingUp() || isNearCompletion(status)) {
+            currentIntervalMillis = minIntervalMillis;
+        } else {
+            currentIntervalMillis = Math.min(currentIntervalMillis * 2, maxIntervalMillis);
+        }
+
+        return currentIntervalMillis;
+    }
+
+    private boolean isWarmingUp() {
+        return System.currentTimeMillis() - startedAt < WARM_UP_MILLIS;
+    }
+
+    private boolean isNearCompletion(InstanceStatus status) {
+        Workflow workflow = status != null ? status.getCurrentWorkflow() : null;
+        if (workflow == null || workflow.getSteps() == null) {
+            return false;
+        }
+
+        for (WorkflowStep step : workflow.getSteps()) {
+            if (step.getStatus() == WorkflowStepStatus.EXECUTING && step.getPercentComplete() >= NEAR_COMPLETION_PERCENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services.polling;
+
+import com.qubell.services.InstanceStatus;
+
+/**
+ * Polls with constant interval, see {@link com.qubell.jenkinsci.plugins.qubell.Configuration#getStatusPollingInterval()}
+ *
+ * @author Alex Krupnov
+ */
+public class FixedPollingSchedule implements PollingSchedule {
+    private final long intervalMillis;
+
+    /**
+     * @param intervalMillis polling interval in milliseconds
+     */
+    public FixedPollingSchedule(long intervalMillis) {
+        this.intervalMillis = Math.max(MIN_INTERVAL_MILLIS, intervalMillis);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getInitialDelay() {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getNextDelay(InstanceStatus status) {
+        return intervalMillis;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.polling;
+
+import com.qubell.services.InstanceStatus;
+
+/**
+ * Polling schedule concentrating polls around the expected completion time, known from previous runs
+ * <ul>
+ * <li>before the expected window polls sparsely, up to the sparse interval</li>
+ * <li>within the window polls with dense interval</li>
+ * <li>after the window, or until the window is known, falls back to the wrapped schedule</li>
+ * </ul>
+ *
+ * @author Alex Krupnov
+ */
+public class HistoricalPollingSchedule implements PollingSchedule {
+    private final PollingSchedule fallback;
+    private final long denseIntervalMillis;
+    private final long sparseIntervalMillis;
+
+    private long windowStart = Long.MAX_VALUE;
+    private long windowEnd = Long.MIN_VALUE;
+
+    /**
+     * @param fallback             schedule used outside of expected completion window
+     * @param denseIntervalMillis  polling interval within the window
+     * @param sparseIntervalMillis longest interval between polls before the window
+     */
+    public HistoricalPollingSchedule(PollingSchedule fallback, long denseIntervalMillis, long sparseIntervalMillis) {
+        this.fallback = fallback;
+        this.denseIntervalMillis = Math.max(MIN_INTERVAL_MILLIS, denseIntervalMillis);
+        this.sparseIntervalMillis = Math.max(this.denseIntervalMillis, sparseIntervalMillis);
+    }
+
+    /**
+     * Sets expected completion window
+     *
+     * @param windowStart earliest expected completion, milliseconds since epoch
+     * @param windowEnd   latest expected completion, milliseconds since epoch
+     */
+    public synchronized void setExpectedCompletion(long windowStart, long windowEnd) {
+        this.windowStart = windowStart;
+        this.windowEnd = Math.max(windowStart, windowEnd);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getInitialDelay() {
+        return fallback.getInitialDelay();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized long getNextDelay(InstanceStatus status) {
+        // Fallback is always asked, so its own state keeps following the statuses
+        long fallbackDelay = fallback.getNextDelay(status);
+        long now = System.currentTimeMillis();
+
+        if (now < windowStart && windowStart != Long.MAX_VALUE) {
+            return Math.max(fallbackDelay, Math.min(windowStart - now, sparseIntervalMillis));
+        }
+        if (now <= windowEnd) {
+            return Math.min(fallbackDelay, denseIntervalMillis);
+        }
+        return fallbackDelay;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services.polling;
+
+import com.qubell.services.InstanceStatus;
+
+/**
+ * Receives instance statuses, fetched by {@link InstanceStatusPoller}
+ * Callbacks are executed on poller threads and have to return quickly
+ *
+ * @author Alex Krupnov
+ */
+public interface InstanceStatusListener {
+    /**
+     * Called on each poll of subscribed instance
+     *
+     * @param status freshly fetched status, shared between all subscribers of the instance
+     */
+    void onStatus(InstanceStatus status);
+
+    /**
+     * Called when status could not be fetched
+     *
+     * @param e either {@link com.qubell.services.exceptions.QubellServiceException} or unexpected runtime exception
+     */
+    void onError(Exception e);
+}
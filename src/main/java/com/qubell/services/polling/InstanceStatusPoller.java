@@ -0,0 +1,371 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services.polling;
+
+import com.qubell.services.BatchResult;
+import com.qubell.services.Instance;
+import com.qubell.services.InstanceStatus;
+import com.qubell.services.InstanceStatusCode;
+import com.qubell.services.QubellFacade;
+import com.qubell.services.exceptions.QubellServiceException;
+import com.qubell.services.exceptions.ResourceNotFoundException;
+import com.qubell.services.exceptions.ServiceUnavailableException;
+import com.qubell.services.ws.RetryPolicy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controller-wide instance status poller
+ * <p/>
+ * Subscriptions are deduplicated per instance id: each instance is polled once per tick,
+ * no matter how many builds are waiting on it, and the status is fanned out to every subscriber.
+ * While polls of an instance keep failing (errors or unknown status), the next poll is pushed back exponentially,
+ * up to {@link #MAX_FAILURE_BACKOFF_MILLIS}; the first successful poll brings the schedule back.
+ * When API circuit breaker is open, polls are not attempted and subscriber deadlines are moved forward,
+ * so waiting builds do not time out because of an outage.
+ * Instances due within {@link #BATCH_WINDOW_MILLIS} of each other are polled together, see {@link QubellFacade#getStatuses},
+ * using facade of the instance whose poll triggered the batch; errors are delivered only to subscribers of the failing instance.
+ *
+ * @author Alex Krupnov
+ */
+public class InstanceStatusPoller {
+    private static final int POLLER_THREADS = 4;
+    /**
+     * Upper bound of the delay between polls of a failing instance
+     */
+    static final long MAX_FAILURE_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    /**
+     * Instances due within this time from a poll are polled together with it, in a single bulk status call
+     */
+    static final long BATCH_WINDOW_MILLIS = 1000;
+    /**
+     * Upper bound of instances polled in a single bulk status call
+     */
+    static final int MAX_BATCH_SIZE = 100;
+    private static final InstanceStatusPoller INSTANCE = new InstanceStatusPoller(POLLER_THREADS);
+
+    private final ScheduledExecutorService executor;
+    private final Random random = new Random();
+
+    /**
+     * Polled instances by id, guarded by this
+     */
+    private final Map<String, PolledInstance> instances = new HashMap<String, PolledInstance>();
+
+    /**
+     * Creates a poller with own thread pool
+     *
+     * @param threads amount of poller threads
+     */
+    public InstanceStatusPoller(int threads) {
+        this.executor = Executors.newScheduledThreadPool(threads, new PollerThreadFactory());
+    }
+
+    /**
+     * @return the controller-wide poller
+     */
+    public static InstanceStatusPoller getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Subscribes listener to status updates of the instance with fixed polling interval and no deadline
+     *
+     * @param instance        instance to poll
+     * @param facade          facade used to query the status, first subscriber's facade is used for the instance
+     * @param pollingInterval requested polling interval in seconds
+     * @param listener        status listener
+     * @return subscription handle, has to be cancelled when status is no longer needed
+     */
+    public StatusSubscription subscribe(Instance instance, QubellFacade facade, int pollingInterval, InstanceStatusListener listener) {
+        return subscribe(instance, facade, new FixedPollingSchedule(TimeUnit.SECONDS.toMillis(pollingInterval)), 0, listener);
+    }
+
+    /**
+     * Subscribes listener to status updates of the instance
+     * Polling of an instance starts with the first subscription, later subscriptions may bring the next poll closer
+     *
+     * @param instance      instance to poll
+     * @param facade        facade used to query the status, first subscriber's facade is used for the instance
+     * @param schedule      polling schedule of the subscriber
+     * @param timeoutMillis time after which subscriber stops waiting, polls are not scheduled past it; 0 for no limit
+     * @param listener      status listener
+     * @return subscription handle, has to be cancelled when status is no longer needed
+     */
+    public StatusSubscription subscribe(Instance instance, QubellFacade facade, PollingSchedule schedule, long timeoutMillis, InstanceStatusListener listener) {
+        long deadline = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+        StatusSubscription subscription = new StatusSubscription(this, instance, listener, schedule, deadline);
+
+        synchronized (this) {
+            PolledInstance polled = instances.get(instance.getId());
+            if (polled == null) {
+                polled = new PolledInstance(instance, facade);
+                instances.put(instance.getId(), polled);
+                polled.subscriptions.add(subscription);
+                schedule(polled, schedule.getInitialDelay());
+            } else {
+                polled.subscriptions.add(subscription);
+
+                long initialDelay = schedule.getInitialDelay();
+                if (polled.nextPoll.getDelay(TimeUnit.MILLISECONDS) > initialDelay && polled.nextPoll.cancel(false)) {
+                    schedule(polled, initialDelay);
+                }
+            }
+        }
+
+        return subscription;
+    }
+
+    /**
+     * Amount of instances being polled
+     *
+     * @return count of distinct instances
+     */
+    public synchronized int getPolledInstancesCount() {
+        return instances.size();
+    }
+
+    synchronized void unsubscribe(StatusSubscription subscription) {
+        String instanceId = subscription.getInstance().getId();
+        PolledInstance polled = instances.get(instanceId);
+        if (polled == null) {
+            return;
+        }
+
+        polled.subscriptions.remove(subscription);
+        if (polled.subscriptions.isEmpty()) {
+            instances.remove(instanceId);
+            if (polled.nextPoll != null) {
+                polled.nextPoll.cancel(false);
+            }
+        }
+    }
+
+    private void poll(PolledInstance polled) {
+        List<PolledInstance> batch;
+        synchronized (this) {
+            if (instances.get(polled.instance.getId()) != polled || polled.polling) {
+                return;
+            }
+            batch = collectBatch(polled);
+        }
+
+        BatchResult<InstanceStatus> statuses = null;
+        Exception error = null;
+        long pause = 0;
+        long startedAt = System.currentTimeMillis();
+        try {
+            if (batch.size() == 1) {
+                statuses = new BatchResult<InstanceStatus>();
+                statuses.put(polled.instance.getId(), polled.facade.getStatus(polled.instance));
+            } else {
+                List<Instance> batchInstances = new ArrayList<Instance>();
+                for (PolledInstance batched : batch) {
+                    batchInstances.add(batched.instance);
+                }
+                statuses = polled.facade.getStatuses(batchInstances);
+            }
+        } catch (ServiceUnavailableException e) {
+            pause = getPause(e);
+        } catch (QubellServiceException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        long apiMillis = System.currentTimeMillis() - startedAt;
+
+        for (PolledInstance batched : batch) {
+            String instanceId = batched.instance.getId();
+            InstanceStatus status = null;
+            Exception instanceError = error;
+            long instancePause = pause;
+            if (statuses != null) {
+                // Errors are kept per instance, so one failing instance does not fail the rest of the batch
+                status = statuses.get(instanceId);
+                instanceError = statuses.getError(instanceId);
+                if (instanceError instanceof ServiceUnavailableException) {
+                    instancePause = getPause((ServiceUnavailableException) instanceError);
+                    instanceError = null;
+                } else if (status == null && instanceError == null) {
+                    instanceError = new ResourceNotFoundException("Specified instance does not exist", null);
+                }
+            }
+            complete(batched, status, instanceError, instancePause, apiMillis);
+        }
+    }
+
+    private static long getPause(ServiceUnavailableException e) {
+        return Math.max(e.getRetryAfterMillis(), RetryPolicy.BASE_DELAY_MILLIS);
+    }
+
+    /**
+     * Picks instances to poll together with the given one: not being polled and due within {@link #BATCH_WINDOW_MILLIS}
+     * Must be called holding the lock
+     */
+    private List<PolledInstance> collectBatch(PolledInstance first) {
+        List<PolledInstance> batch = new ArrayList<PolledInstance>();
+        first.polling = true;
+        batch.add(first);
+
+        for (PolledInstance other : instances.values()) {
+            if (batch.size() >= MAX_BATCH_SIZE) {
+                break;
+            }
+            if (other == first || other.polling || other.nextPoll == null) {
+                continue;
+            }
+            if (other.nextPoll.getDelay(TimeUnit.MILLISECONDS) <= BATCH_WINDOW_MILLIS && other.nextPoll.cancel(false)) {
+                other.polling = true;
+                batch.add(other);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Delivers poll outcome of an instance to its subscribers and schedules its next poll
+     */
+    private void complete(PolledInstance polled, InstanceStatus status, Exception error, long pause, long apiMillis) {
+        List<StatusSubscription> targets;
+        synchronized (this) {
+            targets = new ArrayList<StatusSubscription>(polled.subscriptions);
+        }
+
+        boolean failed = true;
+        try {
+            if (status != null) {
+                failed = status.getStatus() == InstanceStatusCode.UNKNOWN;
+                for (StatusSubscription subscription : targets) {
+                    subscription.getListener().onStatus(status);
+                }
+            } else if (error != null) {
+                notifyError(targets, error);
+            }
+        } finally {
+            long delay;
+            if (pause > 0) {
+                // Nothing was asked, so the clock of every subscriber stops until the next attempt
+                for (StatusSubscription subscription : targets) {
+                    subscription.extendDeadline(pause);
+                }
+                delay = pause;
+            } else {
+                for (StatusSubscription subscription : targets) {
+                    subscription.onPolled(apiMillis);
+                }
+                polled.consecutiveFailures = failed ? polled.consecutiveFailures + 1 : 0;
+                delay = getNextDelay(targets, status, polled.consecutiveFailures);
+            }
+            synchronized (this) {
+                polled.polling = false;
+                if (instances.get(polled.instance.getId()) == polled) {
+                    schedule(polled, delay);
+                }
+            }
+        }
+    }
+
+    private void notifyError(List<StatusSubscription> targets, Exception e) {
+        for (StatusSubscription subscription : targets) {
+            subscription.getListener().onError(e);
+        }
+    }
+
+    /**
+     * Picks the earliest poll time requested by subscribers, backed off for a failing instance,
+     * never later than the nearest subscriber deadline
+     */
+    private long getNextDelay(List<StatusSubscription> targets, InstanceStatus status, int consecutiveFailures) {
+        long now = System.currentTimeMillis();
+        long delay = Long.MAX_VALUE;
+        long deadlineDelay = Long.MAX_VALUE;
+        for (StatusSubscription subscription : targets) {
+            delay = Math.min(delay, subscription.getSchedule().getNextDelay(status));
+            if (subscription.getDeadline() > now) {
+                deadlineDelay = Math.min(deadlineDelay, subscription.getDeadline() - now);
+            }
+        }
+        if (delay == Long.MAX_VALUE) {
+            delay = 0;
+        }
+        if (consecutiveFailures > 1) {
+            delay = getFailureBackoff(delay, consecutiveFailures - 1);
+        }
+        return Math.min(delay, deadlineDelay == Long.MAX_VALUE ? delay : deadlineDelay);
+    }
+
+    /**
+     * Doubles the scheduled delay per failure, randomly picking between half and full bound
+     */
+    private long getFailureBackoff(long scheduledDelay, int failures) {
+        long bound = Math.max(scheduledDelay, RetryPolicy.BASE_DELAY_MILLIS);
+        for (int i = 0; i < failures && bound < MAX_FAILURE_BACKOFF_MILLIS; i++) {
+            bound *= 2;
+        }
+        bound = Math.min(bound, MAX_FAILURE_BACKOFF_MILLIS);
+        synchronized (random) {
+            return bound / 2 + (long) (random.nextDouble() * bound / 2);
+        }
+    }
+
+    private void schedule(final PolledInstance polled, long delayMillis) {
+        polled.nextPoll = executor.schedule(new Runnable() {
+            public void run() {
+                poll(polled);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Instance polling state
+     */
+    private static class PolledInstance {
+        private final Instance instance;
+        private final QubellFacade facade;
+        private final List<StatusSubscription> subscriptions = new ArrayList<StatusSubscription>();
+        private ScheduledFuture<?> nextPoll;
+        private int consecutiveFailures;
+        /**
+         * True while a poll of the instance is in progress, guarded by poller
+         */
+        private boolean polling;
+
+        private PolledInstance(Instance instance, QubellFacade facade) {
+            this.instance = instance;
+            this.facade = facade;
+        }
+    }
+
+    private static class PollerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Qubell status poller #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.polling;
+
+import com.qubell.services.Instance;
+import com.qubell.services.InstanceStatus;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets a single waiting thread consume statuses of several instances, in the order they were polled
+ * Every instance is subscribed with its own listener, see {@link #listenerFor(Instance)}, so errors keep their instance
+ *
+ * @author Alex Krupnov
+ */
+public class MultiStatusQueue {
+    private final BlockingQueue<Event> events = new LinkedBlockingQueue<Event>();
+
+    /**
+     * Creates listener delivering statuses and errors of the instance into this queue
+     *
+     * @param instance subscribed instance
+     * @return listener to subscribe with
+     */
+    public InstanceStatusListener listenerFor(final Instance instance) {
+        return new InstanceStatusListener() {
+            public void onStatus(InstanceStatus status) {
+                events.offer(new Event(instance, status, null));
+            }
+
+            public void onError(Exception e) {
+                events.offer(new Event(instance, null, e));
+            }
+        };
+    }
+
+    /**
+     * Waits for next polled status or error of any instance
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return next event or null when nothing arrived within timeout
+     * @throws InterruptedException when wait was interrupted
+     */
+    public Event next(long timeoutMillis) throws InterruptedException {
+        return events.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Poll outcome of a single instance: either status or error
+     */
+    public static class Event {
+        private final Instance instance;
+        private final InstanceStatus status;
+        private final Exception error;
+
+        private Event(Instance instance, InstanceStatus status, Exception error) {
+            this.instance = instance;
+            this.status = status;
+            this.error = error;
+        }
+
+        /**
+         * @return polled instance
+         */
+        public Instance getInstance() {
+            return instance;
+        }
+
+        /**
+         * @return polled status, null when poll failed
+         */
+        public InstanceStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * @return either {@link com.qubell.services.exceptions.QubellServiceException} or runtime exception, null when status was polled
+         */
+        public Exception getError() {
+            return error;
+        }
+    }
+}
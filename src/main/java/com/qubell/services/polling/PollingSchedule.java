@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services.polling;
+
+import com.qubell.services.InstanceStatus;
+
+/**
+ * Decides when the next instance status poll should happen
+ * Schedules are stateful and belong to a single {@link StatusSubscription}
+ *
+ * @author Alex Krupnov
+ */
+public interface PollingSchedule {
+    /**
+     * Shortest delay between polls, smaller configured intervals are raised to it so the poller never spins
+     */
+    long MIN_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Delay before the first poll of a subscription
+     *
+     * @return delay in milliseconds
+     */
+    long getInitialDelay();
+
+    /**
+     * Computes delay before the next poll
+     *
+     * @param status status returned by the last poll, null when poll failed
+     * @return delay in milliseconds
+     */
+    long getNextDelay(InstanceStatus status);
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services.polling;
+
+import com.qubell.services.InstanceStatus;
+import com.qubell.services.exceptions.QubellServiceException;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InstanceStatusListener} which lets a waiting thread consume statuses one by one
+ *
+ * @author Alex Krupnov
+ */
+public class StatusQueue implements InstanceStatusListener {
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<Object>();
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onStatus(InstanceStatus status) {
+        events.offer(status);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onError(Exception e) {
+        events.offer(e);
+    }
+
+    /**
+     * Waits for next polled status
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return next status or null when nothing arrived within timeout
+     * @throws QubellServiceException when poll failed with service error
+     * @throws InterruptedException   when wait was interrupted
+     */
+    public InstanceStatus next(long timeoutMillis) throws QubellServiceException, InterruptedException {
+        Object event = events.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+
+        if (event instanceof QubellServiceException) {
+            throw (QubellServiceException) event;
+        }
+        if (event instanceof RuntimeException) {
+            throw (RuntimeException) event;
+        }
+        if (event instanceof Exception) {
+            throw new IllegalStateException((Exception) event);
+        }
+
+        return (InstanceStatus) event;
+    }
+}
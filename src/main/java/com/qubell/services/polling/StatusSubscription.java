@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services.polling;
+
+import com.qubell.services.Instance;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A handle for instance status subscription, see {@link InstanceStatusPoller#subscribe}
+ *
+ * @author Alex Krupnov
+ */
+public class StatusSubscription {
+    private final InstanceStatusPoller poller;
+    private final Instance instance;
+    private final InstanceStatusListener listener;
+    private final PollingSchedule schedule;
+    private volatile long deadline;
+    private final AtomicInteger pollCount = new AtomicInteger();
+    private final AtomicLong apiMillis = new AtomicLong();
+
+    StatusSubscription(InstanceStatusPoller poller, Instance instance, InstanceStatusListener listener, PollingSchedule schedule, long deadline) {
+        this.poller = poller;
+        this.instance = instance;
+        this.listener = listener;
+        this.schedule = schedule;
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return subscribed instance
+     */
+    public Instance getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return listener receiving statuses
+     */
+    InstanceStatusListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Schedule requested by subscriber, poller uses the earliest poll time among instance subscribers
+     *
+     * @return polling schedule
+     */
+    PollingSchedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Time when subscriber stops waiting, polls are never scheduled past it
+     * Deadline moves forward while the API is unavailable, see {@link InstanceStatusPoller}
+     *
+     * @return deadline in milliseconds since epoch, {@link Long#MAX_VALUE} when not limited
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Replaces the deadline, for example with timeout learned from previous runs
+     *
+     * @param deadline new deadline in milliseconds since epoch
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Pauses subscriber clock, moving the deadline forward
+     *
+     * @param millis pause duration
+     */
+    void extendDeadline(long millis) {
+        if (deadline != Long.MAX_VALUE) {
+            deadline += millis;
+        }
+    }
+
+    /**
+     * Accounts a status call made for the subscriber
+     *
+     * @param millis call duration
+     */
+    void onPolled(long millis) {
+        pollCount.incrementAndGet();
+        apiMillis.addAndGet(millis);
+    }
+
+    /**
+     * @return amount of status calls made while subscribed, shared polls included
+     */
+    public int getPollCount() {
+        return pollCount.get();
+    }
+
+    /**
+     * @return total duration of status calls made while subscribed
+     */
+    public long getApiMillis() {
+        return apiMillis.get();
+    }
+
+    /**
+     * Stops status delivery, instance polling stops when last subscription is cancelled
+     */
+    public void unsubscribe() {
+        poller.unsubscribe(this);
+    }
+}
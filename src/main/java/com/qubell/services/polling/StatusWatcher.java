@@ -0,0 +1,244 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services.polling;
+
+import com.qubell.services.Instance;
+import com.qubell.services.InstanceStatus;
+import com.qubell.services.InstanceStatusCode;
+import com.qubell.services.QubellFacade;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controller-side asynchronous status waits
+ * <p/>
+ * A watch subscribes to {@link InstanceStatusPoller} and completes when instance reaches expected status,
+ * fails or the timeout passes. Completion runs a {@link WatchCallback} on a small callback pool,
+ * so no executor or build thread is held while the instance is being launched or processes a command.
+ * The result stays available for {@link #awaitResult(String, long)} until it is picked or expires.
+ *
+ * @author Alex Krupnov
+ */
+public class StatusWatcher {
+    private static final int CALLBACK_THREADS = 2;
+
+    /**
+     * Completed results, which were never picked, are dropped after this period
+     */
+    private static final long RESULT_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final StatusWatcher INSTANCE = new StatusWatcher(InstanceStatusPoller.getInstance(), CALLBACK_THREADS);
+
+    private final InstanceStatusPoller poller;
+    private final ExecutorService callbackExecutor;
+    private final Map<String, Watch> watches = new ConcurrentHashMap<String, Watch>();
+
+    /**
+     * Creates a watcher on top of given poller
+     *
+     * @param poller          poller delivering statuses
+     * @param callbackThreads amount of threads executing callbacks
+     */
+    public StatusWatcher(InstanceStatusPoller poller, int callbackThreads) {
+        this.poller = poller;
+        this.callbackExecutor = Executors.newFixedThreadPool(callbackThreads, new CallbackThreadFactory());
+    }
+
+    /**
+     * @return the controller-wide watcher
+     */
+    public static StatusWatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts watching the instance
+     *
+     * @param key            unique key of the watch, used to pick the result
+     * @param instance       instance to watch
+     * @param facade         facade used to query the status
+     * @param schedule       polling schedule
+     * @param expectedStatus status which completes the wait successfully
+     * @param timeoutMillis  wait timeout
+     * @param callback       completion callback, optional
+     */
+    public void watch(String key, Instance instance, QubellFacade facade, PollingSchedule schedule,
+                      InstanceStatusCode expectedStatus, long timeoutMillis, WatchCallback callback) {
+        dropExpiredResults();
+
+        Watch watch = new Watch(expectedStatus, timeoutMillis, callback);
+        Watch previous = watches.put(key, watch);
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        watch.subscription = poller.subscribe(instance, facade, schedule, timeoutMillis, watch);
+        if (watch.completed.get()) {
+            // Completed before the subscription was assigned
+            watch.subscription.unsubscribe();
+        }
+    }
+
+    /**
+     * Checks whether the watcher knows the key, either pending or completed
+     *
+     * @param key watch key
+     * @return true when result can be awaited
+     */
+    public boolean isWatched(String key) {
+        return watches.containsKey(key);
+    }
+
+    /**
+     * Amount of watches still waiting for the outcome
+     *
+     * @return count of pending watches
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (Watch watch : watches.values()) {
+            if (watch.result == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Waits for watch completion and removes the watch
+     *
+     * @param key           watch key
+     * @param timeoutMillis maximum time to wait
+     * @return result or null when key is unknown or watch is not completed within timeout
+     * @throws InterruptedException when wait was interrupted
+     */
+    public WatchResult awaitResult(String key, long timeoutMillis) throws InterruptedException {
+        Watch watch = watches.get(key);
+        if (watch == null) {
+            return null;
+        }
+
+        if (!watch.done.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+
+        watches.remove(key);
+        return watch.result;
+    }
+
+    private void dropExpiredResults() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Watch> it = watches.values().iterator(); it.hasNext(); ) {
+            Watch watch = it.next();
+            if (watch.result != null && now - watch.completedAt > RESULT_RETENTION_MILLIS) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Single asynchronous wait, receives statuses from the poller
+     */
+    private class Watch implements InstanceStatusListener {
+        private final InstanceStatusCode expectedStatus;
+        private final long startedAt = System.currentTimeMillis();
+        private final long deadline;
+        private final WatchCallback callback;
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile StatusSubscription subscription;
+        private volatile WatchResult result;
+        private volatile long completedAt;
+
+        private Watch(InstanceStatusCode expectedStatus, long timeoutMillis, WatchCallback callback) {
+            this.expectedStatus = expectedStatus;
+            this.deadline = startedAt + timeoutMillis;
+            this.callback = callback;
+        }
+
+        public void onStatus(InstanceStatus status) {
+            if (status.getStatus() == expectedStatus) {
+                complete(WatchResult.Outcome.REACHED, status, null);
+            } else if (status.getStatus() == InstanceStatusCode.FAILED) {
+                complete(WatchResult.Outcome.FAILED, status, null);
+            } else if (System.currentTimeMillis() >= getDeadline()) {
+                complete(WatchResult.Outcome.TIMED_OUT, status, null);
+            }
+        }
+
+        public void onError(Exception e) {
+            complete(WatchResult.Outcome.ERROR, null, e.getMessage());
+        }
+
+        private long getDeadline() {
+            // Subscription deadline moves forward while API is unavailable
+            StatusSubscription current = subscription;
+            return current != null ? current.getDeadline() : deadline;
+        }
+
+        private void cancel() {
+            if (completed.compareAndSet(false, true) && subscription != null) {
+                subscription.unsubscribe();
+            }
+        }
+
+        private void complete(WatchResult.Outcome outcome, InstanceStatus status, String errorMessage) {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            if (subscription != null) {
+                subscription.unsubscribe();
+            }
+
+            final WatchResult watchResult = new WatchResult(outcome, status, errorMessage, System.currentTimeMillis() - startedAt);
+            callbackExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        if (callback != null) {
+                            callback.onCompleted(watchResult);
+                        }
+                    } finally {
+                        // Result becomes visible only after callback finished its work
+                        result = watchResult;
+                        completedAt = System.currentTimeMillis();
+                        done.countDown();
+                    }
+                }
+            });
+        }
+    }
+
+    private static class CallbackThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Qubell status watcher callback #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
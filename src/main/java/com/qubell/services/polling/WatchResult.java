@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.qubell.services.polling;
+
+import com.qubell.services.InstanceStatus;
+
+/**
+ * Outcome of asynchronous status wait, see {@link StatusWatcher}
+ *
+ * @author Alex Krupnov
+ */
+public class WatchResult {
+    /**
+     * Kinds of wait outcome
+     */
+    public enum Outcome {
+        /**
+         * Instance reached expected status
+         */
+        REACHED,
+        /**
+         * Instance returned failed status
+         */
+        FAILED,
+        /**
+         * Expected status was not reached within timeout
+         */
+        TIMED_OUT,
+        /**
+         * Status could not be fetched
+         */
+        ERROR
+    }
+
+    private final Outcome outcome;
+    private final InstanceStatus lastStatus;
+    private final String errorMessage;
+    private final long durationMillis;
+
+    WatchResult(Outcome outcome, InstanceStatus lastStatus, String errorMessage, long durationMillis) {
+        this.outcome = outcome;
+        this.lastStatus = lastStatus;
+        this.errorMessage = errorMessage;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * @return kind of outcome
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Last status received before wait completion
+     *
+     * @return status or null when no status was received
+     */
+    public InstanceStatus getLastStatus() {
+        return lastStatus;
+    }
+
+    /**
+     * Error description for {@link Outcome#ERROR}
+     *
+     * @return message or null
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * @return time spent in wait, milliseconds
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
@@ -17,6 +17,7 @@
 package com.qubell.services.toa;
 
 import com.qubell.services.Application;
+import com.qubell.services.Environment;
 import com.qubell.services.Instance;
 import com.qubell.services.InstanceStatus;
 import com.qubell.services.InstanceStatusCode;
@@ -41,6 +42,9 @@ public class InstanceStatusTOA {
         instanceStatus.setInstance(i);
         instanceStatus.setStatus(getStatusCode(response.getStatus()));
         instanceStatus.setApplication(new Application(response.getApplicationId()));
+        if (response.getEnvironmentId() != null) {
+            instanceStatus.setEnvironment(new Environment(response.getEnvironmentId()));
+        }
         instanceStatus.setErrorMessage(response.getErrorMessage());
         instanceStatus.setReturnValues(response.getReturnValues());
         instanceStatus.setVersion(response.getVersion());
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller-wide registry of {@link OperationMetrics}, one per API operation
+ * <p/>
+ * Every operation is published as a JMX MBean named {@code com.qubell.jenkins:type=ApiOperation,name=<operation>}
+ * when first called.
+ *
+ * @author Alex Krupnov
+ */
+public final class ApiMetrics {
+    public static final String JMX_DOMAIN = "com.qubell.jenkins";
+
+    private static final Logger LOGGER = Logger.getLogger(ApiMetrics.class.getName());
+    private static final ApiMetrics INSTANCE = new ApiMetrics();
+
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentSkipListMap<String, OperationMetrics>();
+
+    private ApiMetrics() {
+    }
+
+    /**
+     * @return the controller-wide registry
+     */
+    public static ApiMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets metrics of the operation, creating and publishing them on first access
+     *
+     * @param operation operation name
+     * @return metrics
+     */
+    public OperationMetrics get(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        if (metrics == null) {
+            OperationMetrics created = new OperationMetrics(operation);
+            metrics = operations.putIfAbsent(operation, created);
+            if (metrics == null) {
+                metrics = created;
+                register(created);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @return metrics of all operations called so far, ordered by name
+     */
+    public List<OperationMetrics> getOperations() {
+        return new ArrayList<OperationMetrics>(operations.values());
+    }
+
+    private void register(OperationMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=ApiOperation,name=" + ObjectName.quote(metrics.getName()));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (Exception e) {
+            // Metrics are still available on the management page
+            LOGGER.log(Level.WARNING, "Unable to publish API metrics via JMX", e);
+        }
+    }
+}
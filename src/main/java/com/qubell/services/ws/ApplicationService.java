@@ -55,4 +55,16 @@ public interface ApplicationService {
      * @throws NotAuthorizedException when user is not authorized to access the app
      */
     UpdateManifestResponse updateManifest(String applicationId, String manifest) throws InvalidCredentialsException, InvalidInputException, ResourceNotFoundException, NotAuthorizedException;
+
+    /**
+     * Updates application manifest, streaming it into request body
+     * @param applicationId id of app to update
+     * @param manifest yaml manifest content
+     * @return server response
+     * @throws InvalidCredentialsException when credentials are invalid
+     * @throws ResourceNotFoundException when application is not found
+     * @throws InvalidInputException when manifest is invalid
+     * @throws NotAuthorizedException when user is not authorized to access the app
+     */
+    UpdateManifestResponse updateManifest(String applicationId, RequestBody manifest) throws InvalidCredentialsException, InvalidInputException, ResourceNotFoundException, NotAuthorizedException;
 }
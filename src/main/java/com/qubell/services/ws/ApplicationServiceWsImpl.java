@@ -42,6 +42,15 @@ public class ApplicationServiceWsImpl extends WebServiceBase implements Applicat
         super(configuration);
     }
 
+    /**
+     * Inits service, sharing retry budget of a build
+     * @param configuration plugin configuration
+     * @param retryBudget retries left for the build
+     */
+    public ApplicationServiceWsImpl(Configuration configuration, RetryBudget retryBudget) {
+        super(configuration, retryBudget);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -118,6 +127,17 @@ public class ApplicationServiceWsImpl extends WebServiceBase implements Applicat
      * {@inheritDoc}
      */
     public UpdateManifestResponse updateManifest(String applicationId, String manifest) throws InvalidCredentialsException, InvalidInputException, ResourceNotFoundException, com.qubell.services.exceptions.NotAuthorizedException {
+        return putManifest(applicationId, manifest);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public UpdateManifestResponse updateManifest(String applicationId, RequestBody manifest) throws InvalidCredentialsException, InvalidInputException, ResourceNotFoundException, com.qubell.services.exceptions.NotAuthorizedException {
+        return putManifest(applicationId, manifest);
+    }
+
+    private UpdateManifestResponse putManifest(String applicationId, Object manifest) throws InvalidCredentialsException, InvalidInputException, ResourceNotFoundException, com.qubell.services.exceptions.NotAuthorizedException {
         WebClient client = getWebClient();
         client.header("Content-Type", "application/x-yaml");
         try {
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+/**
+ * Circuit breaker of a single API endpoint and account, see {@link CircuitBreakerRegistry}
+ * <p/>
+ * Outcomes of the last {@link #WINDOW_SIZE} calls are kept. Once at least {@link #MIN_CALLS} are known and
+ * either {@link #FAILURE_RATIO} of them failed or {@link #SLOW_CALL_RATIO} of them took longer than
+ * {@link #SLOW_CALL_MILLIS}, the breaker opens and rejects calls for {@link #OPEN_MILLIS}.
+ * After that, a single probe call is let through (half-open state): its success closes the breaker,
+ * its failure opens it again.
+ *
+ * @author Alex Krupnov
+ */
+public class CircuitBreaker {
+    public static final int WINDOW_SIZE = 20;
+    public static final int MIN_CALLS = 10;
+    public static final double FAILURE_RATIO = 0.5;
+    public static final long SLOW_CALL_MILLIS = 10000;
+    public static final double SLOW_CALL_RATIO = 0.8;
+    public static final long OPEN_MILLIS = 30000;
+
+    /**
+     * Breaker state
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+
+    private final boolean[] failures = new boolean[WINDOW_SIZE];
+    private final boolean[] slowCalls = new boolean[WINDOW_SIZE];
+    private int recorded;
+    private int position;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long rejectedCalls;
+
+    /**
+     * @param name breaker name, endpoint and account it guards
+     */
+    public CircuitBreaker(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return breaker name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Asks permission for a call, every permitted call has to be followed by {@link #onSuccess} or {@link #onFailure}
+     *
+     * @return true when call may proceed, false when it has to fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= OPEN_MILLIS) {
+            state = State.HALF_OPEN;
+        }
+
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+
+        rejectedCalls++;
+        return false;
+    }
+
+    /**
+     * Records a call, which reached the server and got an answer, even an error one
+     *
+     * @param latencyMillis call duration
+     */
+    public synchronized void onSuccess(long latencyMillis) {
+        if (state == State.HALF_OPEN) {
+            reset();
+            return;
+        }
+        record(false, latencyMillis >= SLOW_CALL_MILLIS);
+    }
+
+    /**
+     * Records a call, which failed because of server or network: 5xx, 408, connection failure or timeout
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true, false);
+    }
+
+    /**
+     * @return current state
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= OPEN_MILLIS) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * @return time left until next probe is let through, 0 when breaker is not open
+     */
+    public synchronized long getRetryAfterMillis() {
+        if (state == State.CLOSED) {
+            return 0;
+        }
+        if (state == State.HALF_OPEN) {
+            // Probe is in flight, its outcome will be known shortly
+            return probeInFlight ? RetryPolicy.BASE_DELAY_MILLIS : 0;
+        }
+        return Math.max(0, openedAt + OPEN_MILLIS - System.currentTimeMillis());
+    }
+
+    /**
+     * @return amount of calls rejected without reaching the server
+     */
+    public synchronized long getRejectedCalls() {
+        return rejectedCalls;
+    }
+
+    private void record(boolean failure, boolean slow) {
+        failures[position] = failure;
+        slowCalls[position] = slow;
+        position = (position + 1) % WINDOW_SIZE;
+        recorded = Math.min(recorded + 1, WINDOW_SIZE);
+
+        if (state == State.CLOSED && recorded >= MIN_CALLS && shouldTrip()) {
+            open();
+        }
+    }
+
+    private boolean shouldTrip() {
+        int failed = 0;
+        int slow = 0;
+        for (int i = 0; i < recorded; i++) {
+            if (failures[i]) {
+                failed++;
+            }
+            if (slowCalls[i]) {
+                slow++;
+            }
+        }
+        return failed >= recorded * FAILURE_RATIO || slow >= recorded * SLOW_CALL_RATIO;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        probeInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        probeInFlight = false;
+        recorded = 0;
+        position = 0;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import com.qubell.jenkinsci.plugins.qubell.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Controller-wide registry of {@link CircuitBreaker}s, one per API endpoint (top level resource) and account,
+ * so a degraded endpoint does not block the others and one account's failures do not affect another one
+ *
+ * @author Alex Krupnov
+ */
+public final class CircuitBreakerRegistry {
+    private static final CircuitBreakerRegistry INSTANCE = new CircuitBreakerRegistry();
+
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<String, CircuitBreaker>();
+
+    private CircuitBreakerRegistry() {
+    }
+
+    /**
+     * @return the controller-wide registry
+     */
+    public static CircuitBreakerRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets breaker of the endpoint for account of given configuration, creating it on first access
+     *
+     * @param configuration plugin configuration
+     * @param endpoint      top level API resource, such as "instances"
+     * @return breaker
+     */
+    public CircuitBreaker get(Configuration configuration, String endpoint) {
+        String key = String.format("%s %s@%s", endpoint, configuration.getLogin(), configuration.getUrl());
+        CircuitBreaker breaker = breakers.get(key);
+        if (breaker == null) {
+            CircuitBreaker created = new CircuitBreaker(key);
+            breaker = breakers.putIfAbsent(key, created);
+            if (breaker == null) {
+                breaker = created;
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * @return all breakers created so far
+     */
+    public List<CircuitBreaker> getBreakers() {
+        return new ArrayList<CircuitBreaker>(breakers.values());
+    }
+
+    /**
+     * Drops all breakers, used when global configuration changes
+     */
+    public void clear() {
+        breakers.clear();
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import javax.ws.rs.client.ClientException;
+
+/**
+ * Thrown instead of calling an endpoint, which circuit breaker is open, see {@link CircuitBreaker}
+ *
+ * @author Alex Krupnov
+ */
+public class CircuitOpenException extends ClientException {
+    private final long retryAfterMillis;
+
+    /**
+     * @param breaker          open breaker
+     * @param retryAfterMillis time until next call may be let through
+     */
+    public CircuitOpenException(CircuitBreaker breaker, long retryAfterMillis) {
+        super(String.format("Qubell API is unavailable (%s), calls are suspended for %d seconds",
+                breaker.getName(), (retryAfterMillis + 999) / 1000));
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return time until next call may be let through
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Request body sent gzip compressed, see {@link CompressedBodyWriter}
+ *
+ * @author Alex Krupnov
+ */
+final class CompressedBody {
+    private final InputStream content;
+
+    private CompressedBody(InputStream content) {
+        this.content = content;
+    }
+
+    /**
+     * Wraps content larger than threshold, peeking at most threshold + 1 bytes to find out the size
+     * @param content content stream, closed when it is not compressed
+     * @param threshold size in bytes above which content is compressed
+     * @return compressed body or null when content is not larger than threshold
+     * @throws IOException when content could not be read
+     */
+    static CompressedBody of(InputStream content, int threshold) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(content);
+        buffered.mark(threshold + 1);
+        long peeked = 0;
+        byte[] chunk = new byte[4096];
+        int read;
+        while (peeked <= threshold && (read = buffered.read(chunk, 0, (int) Math.min(chunk.length, threshold + 1 - peeked))) != -1) {
+            peeked += read;
+        }
+        if (peeked <= threshold) {
+            IOUtils.closeQuietly(buffered);
+            return null;
+        }
+        buffered.reset();
+        return new CompressedBody(buffered);
+    }
+
+    InputStream getContent() {
+        return content;
+    }
+
+    void close() {
+        IOUtils.closeQuietly(content);
+    }
+}
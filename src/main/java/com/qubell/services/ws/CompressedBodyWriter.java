@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import org.apache.commons.io.IOUtils;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes {@link CompressedBody} gzip compressed, keeping content type of the call and adding Content-Encoding
+ *
+ * @author Alex Krupnov
+ */
+final class CompressedBodyWriter implements MessageBodyWriter<CompressedBody> {
+
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return CompressedBody.class.isAssignableFrom(type);
+    }
+
+    public long getSize(CompressedBody body, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    public void writeTo(CompressedBody body, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        // Headers are sent with the first byte of the body, so they still can be changed here
+        httpHeaders.putSingle("Content-Encoding", "gzip");
+
+        GZIPOutputStream gzip = new GZIPOutputStream(entityStream);
+        IOUtils.copy(body.getContent(), gzip);
+        gzip.finish();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import com.qubell.jenkinsci.plugins.qubell.Configuration;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers, per account, whether API lists instances of an organization, and organizations to list
+ * Once listing is rejected by the API, bulk status fetch falls back to single status calls for the account
+ *
+ * @author Alex Krupnov
+ */
+final class InstanceListingSupport {
+    /**
+     * How long organization ids are reused before being listed again
+     */
+    static final long ORGANIZATIONS_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final InstanceListingSupport INSTANCE = new InstanceListingSupport();
+
+    private final ConcurrentMap<String, Boolean> unsupported = new ConcurrentHashMap<String, Boolean>();
+    private final ConcurrentMap<String, CachedOrganizations> organizations = new ConcurrentHashMap<String, CachedOrganizations>();
+
+    private InstanceListingSupport() {
+    }
+
+    static InstanceListingSupport getInstance() {
+        return INSTANCE;
+    }
+
+    boolean isSupported(Configuration configuration) {
+        return !unsupported.containsKey(getKey(configuration));
+    }
+
+    void markUnsupported(Configuration configuration) {
+        unsupported.put(getKey(configuration), Boolean.TRUE);
+    }
+
+    /**
+     * @return organization ids listed recently, null when they have to be listed again
+     */
+    List<String> getOrganizationIds(Configuration configuration) {
+        CachedOrganizations cached = organizations.get(getKey(configuration));
+        return cached != null && System.currentTimeMillis() - cached.listedAt < ORGANIZATIONS_TTL_MILLIS ? cached.ids : null;
+    }
+
+    void setOrganizationIds(Configuration configuration, List<String> ids) {
+        organizations.put(getKey(configuration), new CachedOrganizations(ids));
+    }
+
+    private static String getKey(Configuration configuration) {
+        return String.format("%s@%s", configuration.getLogin(), configuration.getUrl());
+    }
+
+    private static class CachedOrganizations {
+        private final List<String> ids;
+        private final long listedAt = System.currentTimeMillis();
+
+        private CachedOrganizations(List<String> ids) {
+            this.ids = ids;
+        }
+    }
+}
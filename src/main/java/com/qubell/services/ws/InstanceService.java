@@ -16,8 +16,10 @@
 
 package com.qubell.services.ws;
 
+import com.qubell.services.BatchResult;
 import com.qubell.services.exceptions.*;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -26,5 +28,6 @@ import java.util.Map;
  */
 public interface InstanceService {
     RunCommandResponse runCommand(String instanceId, String commandName, Map<String, Object> parameters) throws InvalidCredentialsException, InvalidInputException, NotAuthorizedException, ResourceNotFoundException, InstanceBusyException;
-    InstanceStatusResponse getStatus(String instanceId) throws InvalidCredentialsException, ResourceNotFoundException, NotAuthorizedException;
+    com.qubell.services.InstanceStatus getStatus(String instanceId) throws InvalidCredentialsException, ResourceNotFoundException, NotAuthorizedException;
+    BatchResult<com.qubell.services.InstanceStatus> getStatuses(Collection<String> instanceIds) throws InvalidCredentialsException, NotAuthorizedException;
 }
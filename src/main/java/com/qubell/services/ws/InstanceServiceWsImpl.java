@@ -17,22 +17,61 @@
 package com.qubell.services.ws;
 
 import com.qubell.jenkinsci.plugins.qubell.Configuration;
+import com.qubell.jenkinsci.plugins.qubell.JsonParser;
+import com.qubell.services.BatchResult;
 import com.qubell.services.exceptions.InstanceBusyException;
 import com.qubell.services.exceptions.InvalidCredentialsException;
 import com.qubell.services.exceptions.InvalidInputException;
 import com.qubell.services.exceptions.ResourceNotFoundException;
+import com.qubell.services.toa.InstanceStatusTOA;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.apache.cxf.transport.http.HTTPConduit;
 
 import javax.ws.rs.*;
 import javax.ws.rs.client.ClientException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Alex Krupnov
  */
 public class InstanceServiceWsImpl extends WebServiceBase implements InstanceService {
+    /**
+     * Smallest amount of instances worth listing whole organizations instead of asking each instance
+     */
+    static final int BULK_LISTING_THRESHOLD = 5;
+
+    /**
+     * Amount of single status calls made at once, when statuses can't be listed
+     */
+    static final int PARALLEL_STATUS_CALLS = 8;
+
+    private static final ExecutorService STATUS_EXECUTOR = Executors.newFixedThreadPool(PARALLEL_STATUS_CALLS, new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Qubell status fetch #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
 
     public static final InstanceStatusResponse REQUEST_TIMEOUT_RESPONSE = new InstanceStatusResponse();
     static {
@@ -44,10 +83,24 @@ public class InstanceServiceWsImpl extends WebServiceBase implements InstanceSer
         REQUEST_TIMEOUT_RESPONSE.setId("Stub Id");
     }
 
+    /**
+     * Domain status returned while status of an instance is unknown due to transient failures
+     */
+    public static final com.qubell.services.InstanceStatus REQUEST_TIMEOUT_STATUS = new InstanceStatusTOA().fromWsResponse(REQUEST_TIMEOUT_RESPONSE);
+
     public InstanceServiceWsImpl(Configuration configuration) {
         super(configuration);
     }
 
+    /**
+     * Inits service, sharing retry budget of a build
+     * @param configuration plugin configuration
+     * @param retryBudget retries left for the build
+     */
+    public InstanceServiceWsImpl(Configuration configuration, RetryBudget retryBudget) {
+        super(configuration, retryBudget);
+    }
+
     public RunCommandResponse runCommand(String instanceId, String commandName, Map<String, Object> parameters) throws InvalidCredentialsException, InvalidInputException, com.qubell.services.exceptions.NotAuthorizedException, ResourceNotFoundException, InstanceBusyException {
         WebClient client = getWebClient();
         RunCommandRequestBuilder builder = new RunCommandRequestBuilder();
@@ -113,15 +166,52 @@ public class InstanceServiceWsImpl extends WebServiceBase implements InstanceSer
         }
     }
 
-    public InstanceStatusResponse getStatus(String instanceId) throws InvalidCredentialsException, ResourceNotFoundException, com.qubell.services.exceptions.NotAuthorizedException {
+    /**
+     * Gets instance status with a conditional call
+     * Sends validators of the previous response of the instance; when server answers 304, or the body is byte-to-byte
+     * the same as before, the status mapped from the previous response is returned without deserialization
+     */
+    public com.qubell.services.InstanceStatus getStatus(String instanceId) throws InvalidCredentialsException, ResourceNotFoundException, com.qubell.services.exceptions.NotAuthorizedException {
         WebClient client = getWebClient();
+        String cacheKey = String.format("%s@%s/%s", configuration.getLogin(), configuration.getUrl(), instanceId);
+        StatusResponseCache.CachedResponse cached = StatusResponseCache.getInstance().get(cacheKey);
+        if (cached != null && cached.getEtag() != null) {
+            client.header(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            client.header(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+        }
 
         try {
-            return invoke(
+            Response response = invokeAndBuffer(
                     HttpMethod.GET,
-                    client.path("instances").path(instanceId),
-                    InstanceStatusResponse.class
+                    client.path("instances").path(instanceId)
             );
+            if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode() && cached != null) {
+                return cached.getStatus();
+            }
+
+            byte[] body = (byte[]) response.getEntity();
+            byte[] fingerprint = getFingerprint(body);
+            InstanceStatusResponse statusResponse;
+            com.qubell.services.InstanceStatus status;
+            if (cached != null && MessageDigest.isEqual(fingerprint, cached.getFingerprint())) {
+                statusResponse = cached.getResponse();
+                status = cached.getStatus();
+            } else {
+                statusResponse = JsonParser.parse(body, InstanceStatusResponse.class);
+                status = new InstanceStatusTOA().fromWsResponse(statusResponse);
+            }
+
+            StatusResponseCache.getInstance().put(cacheKey, new StatusResponseCache.CachedResponse(
+                    response.getHeaderString(HttpHeaders.ETAG),
+                    response.getHeaderString(HttpHeaders.LAST_MODIFIED),
+                    fingerprint,
+                    statusResponse,
+                    status));
+            return status;
+        } catch (IOException ioe) {
+            throw new ClientException("Unable to parse instance status", ioe);
         } catch (NotAuthorizedException nae) {
             throw new com.qubell.services.exceptions.InvalidCredentialsException(
                     parseJsonErrorMessage(nae.getResponse(), "The specified credentials are not valid"),
@@ -133,7 +223,11 @@ public class InstanceServiceWsImpl extends WebServiceBase implements InstanceSer
                     nfe
             );
         } catch (ClientException ce) {
-            return REQUEST_TIMEOUT_RESPONSE;
+            // Transient failures outlived retries, status is unknown for now and caller keeps polling
+            if (RetryPolicy.isTransient(HttpMethod.GET, ce)) {
+                return REQUEST_TIMEOUT_STATUS;
+            }
+            throw ce;
         } catch (WebApplicationException e) {
             Response response = e.getResponse();
             int status = e.getResponse().getStatus();
@@ -156,11 +250,136 @@ public class InstanceServiceWsImpl extends WebServiceBase implements InstanceSer
                         e
                 );
             }
-            if (status == 408) {
-                return REQUEST_TIMEOUT_RESPONSE;
+            if (RetryPolicy.isTransientStatus(status)) {
+                return REQUEST_TIMEOUT_STATUS;
             }
 
             throw e;
         }
     }
+
+    /**
+     * Gets statuses of several instances
+     * Lists instances of every organization when enough instances are asked and the API supports listing,
+     * the rest is fetched with single status calls, {@link #PARALLEL_STATUS_CALLS} at once over kept-alive connections
+     *
+     * @param instanceIds ids of instances
+     * @return statuses by instance id, or the error status call of an instance failed with,
+     * {@link ResourceNotFoundException} for instances which do not exist
+     */
+    public BatchResult<com.qubell.services.InstanceStatus> getStatuses(Collection<String> instanceIds) throws InvalidCredentialsException, com.qubell.services.exceptions.NotAuthorizedException {
+        Set<String> missing = new LinkedHashSet<String>(instanceIds);
+        BatchResult<com.qubell.services.InstanceStatus> statuses = new BatchResult<com.qubell.services.InstanceStatus>();
+
+        if (missing.size() >= BULK_LISTING_THRESHOLD && InstanceListingSupport.getInstance().isSupported(configuration)) {
+            listStatuses(missing, statuses);
+            missing.removeAll(statuses.getResults().keySet());
+        }
+
+        fetchStatuses(missing, statuses);
+        return statuses;
+    }
+
+    /**
+     * Lists instances of every organization, keeping the asked ones
+     * Stops listing on errors, so remaining instances are fetched one by one
+     */
+    private void listStatuses(Set<String> instanceIds, BatchResult<com.qubell.services.InstanceStatus> statuses) throws InvalidCredentialsException, com.qubell.services.exceptions.NotAuthorizedException {
+        InstanceListingSupport support = InstanceListingSupport.getInstance();
+        List<String> organizationIds = support.getOrganizationIds(configuration);
+        if (organizationIds == null) {
+            organizationIds = new ArrayList<String>();
+            for (Organization organization : new OrganizationServiceWsImpl(configuration, retryBudget).listOrganizations()) {
+                organizationIds.add(organization.getId());
+            }
+            support.setOrganizationIds(configuration, organizationIds);
+        }
+
+        InstanceStatusTOA toa = new InstanceStatusTOA();
+        for (String organizationId : organizationIds) {
+            try {
+                for (InstanceStatusResponse response : invokeAndGetCollection(
+                        HttpMethod.GET,
+                        getWebClient().path("organizations").path(organizationId).path("instances"),
+                        null,
+                        InstanceStatusResponse.class)) {
+                    if (instanceIds.contains(response.getId())) {
+                        statuses.put(response.getId(), toa.fromWsResponse(response));
+                    }
+                }
+            } catch (NotAuthorizedException nae) {
+                throw new com.qubell.services.exceptions.InvalidCredentialsException(
+                        parseJsonErrorMessage(nae.getResponse(), "The specified credentials are not valid"),
+                        nae
+                );
+            } catch (WebApplicationException e) {
+                int status = e.getResponse().getStatus();
+                if (status == 404 || status == 405 || status == 501) {
+                    // No listing in this API version, not asking again
+                    support.markUnsupported(configuration);
+                    return;
+                }
+                if (status != 403) {
+                    return;
+                }
+            } catch (ClientException ce) {
+                return;
+            }
+
+            if (statuses.getResults().size() == instanceIds.size()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Fetches statuses with single calls, recording errors per instance
+     * Interruption fails the whole batch, since statuses of remaining instances are unknown rather than missing
+     */
+    private void fetchStatuses(Set<String> instanceIds, BatchResult<com.qubell.services.InstanceStatus> statuses) {
+        if (instanceIds.size() == 1) {
+            String instanceId = instanceIds.iterator().next();
+            try {
+                statuses.put(instanceId, getStatus(instanceId));
+            } catch (Exception e) {
+                statuses.fail(instanceId, e);
+            }
+            return;
+        }
+
+        Map<String, Future<com.qubell.services.InstanceStatus>> futures = new HashMap<String, Future<com.qubell.services.InstanceStatus>>();
+        for (final String instanceId : instanceIds) {
+            futures.put(instanceId, STATUS_EXECUTOR.submit(new Callable<com.qubell.services.InstanceStatus>() {
+                public com.qubell.services.InstanceStatus call() throws Exception {
+                    return getStatus(instanceId);
+                }
+            }));
+        }
+
+        try {
+            for (Map.Entry<String, Future<com.qubell.services.InstanceStatus>> entry : futures.entrySet()) {
+                try {
+                    statuses.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    statuses.fail(entry.getKey(), cause instanceof Exception ? (Exception) cause : e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while fetching instance statuses", e);
+        } finally {
+            for (Future<com.qubell.services.InstanceStatus> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static byte[] getFingerprint(byte[] body) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
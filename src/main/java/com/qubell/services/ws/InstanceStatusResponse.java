@@ -17,6 +17,7 @@
 package com.qubell.services.ws;
 
 import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.map.annotate.JsonDeserialize;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -24,6 +25,7 @@ import java.util.Map;
 
 /**
  * Response object for instnace status
+ * Parameters and return values are parsed on first access, see {@link LazyJsonMap}
  * @author Alex Krupnov
  */
 @XmlRootElement
@@ -135,6 +137,7 @@ public class InstanceStatusResponse {
      * Sets input parameters of instance status
      * @param parameters params map
      */
+    @JsonDeserialize(using = LazyJsonMapDeserializer.class)
     public void setParameters(Map<String, Object> parameters) {
         this.parameters = parameters;
     }
@@ -183,6 +186,7 @@ public class InstanceStatusResponse {
      * Sets return values
      * @param returnValues return values map
      */
+    @JsonDeserialize(using = LazyJsonMapDeserializer.class)
     public void setReturnValues(Map<String, Object> returnValues) {
         this.returnValues = returnValues;
     }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import com.qubell.jenkinsci.plugins.qubell.JsonParser;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.JsonSerializable;
+import org.codehaus.jackson.map.SerializerProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Free form json object, kept as raw bytes until first access
+ * <p/>
+ * Instance parameters and return values are received on every status poll, but only read when expected status
+ * is reached or a change is reported. Maps with the same bytes are equal without parsing,
+ * and an untouched map is written back to json as is.
+ *
+ * @author Alex Krupnov
+ */
+public class LazyJsonMap extends AbstractMap<String, Object> implements JsonSerializable {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final byte[] raw;
+    private Map<String, Object> parsed;
+
+    /**
+     * @param raw json object bytes in UTF-8
+     */
+    public LazyJsonMap(byte[] raw) {
+        this.raw = raw;
+    }
+
+    /**
+     * @return true when the json was parsed already
+     */
+    public synchronized boolean isParsed() {
+        return parsed != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return getParsed().entrySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object get(Object key) {
+        return getParsed().get(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return getParsed().containsKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return getParsed().size();
+    }
+
+    /**
+     * Compares raw bytes first, parses both maps only when bytes differ
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LazyJsonMap && Arrays.equals(raw, ((LazyJsonMap) o).raw)) {
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Writes raw json when the map was not parsed, otherwise the parsed map
+     */
+    public void serialize(JsonGenerator jgen, SerializerProvider provider) throws IOException {
+        if (!isParsed()) {
+            jgen.writeRawValue(new String(raw, UTF_8));
+        } else {
+            provider.defaultSerializeValue(getParsed(), jgen);
+        }
+    }
+
+    private synchronized Map<String, Object> getParsed() {
+        if (parsed == null) {
+            Map<String, Object> map = JsonParser.parse(new ByteArrayInputStream(raw));
+            parsed = map != null ? map : new HashMap<String, Object>();
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.DeserializationContext;
+import org.codehaus.jackson.map.JsonDeserializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Copies a json object subtree token by token into a byte buffer, see {@link LazyJsonMap}
+ * No intermediate maps or tree nodes are created
+ *
+ * @author Alex Krupnov
+ */
+public class LazyJsonMapDeserializer extends JsonDeserializer<LazyJsonMap> {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LazyJsonMap deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        JsonGenerator generator = jp.getCodec().getJsonFactory().createJsonGenerator(buffer);
+        try {
+            generator.copyCurrentStructure(jp);
+        } finally {
+            generator.close();
+        }
+        return new LazyJsonMap(buffer.toByteArray());
+    }
+}
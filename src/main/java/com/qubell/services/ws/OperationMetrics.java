@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import javax.ws.rs.WebApplicationException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Call counters and latency histogram of a single API operation
+ *
+ * @author Alex Krupnov
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+    /**
+     * Error key of failures without http status: connection refused, reset, timed out
+     */
+    public static final String NETWORK_ERROR = "network";
+
+    private final String name;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> errorsByStatus = new ConcurrentHashMap<String, AtomicLong>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a successful call
+     *
+     * @param nanos call latency
+     */
+    public void onSuccess(long nanos) {
+        calls.incrementAndGet();
+        latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Records a failed call
+     *
+     * @param nanos call latency
+     * @param e     failure
+     */
+    public void onFailure(long nanos, RuntimeException e) {
+        calls.incrementAndGet();
+        errors.incrementAndGet();
+        latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+
+        String key = e instanceof WebApplicationException ?
+                String.valueOf(((WebApplicationException) e).getResponse().getStatus()) : NETWORK_ERROR;
+        AtomicLong counter = errorsByStatus.get(key);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = errorsByStatus.putIfAbsent(key, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    /**
+     * Records a call rejected by circuit breaker
+     */
+    public void onRejected() {
+        rejectedCalls.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<String, Long> getErrorsByStatus() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : errorsByStatus.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getMeanMillis() {
+        return TimeUnit.MICROSECONDS.toMillis(latency.getMeanMicros());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getP50Millis() {
+        return TimeUnit.MICROSECONDS.toMillis(latency.getPercentileMicros(50));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getP95Millis() {
+        return TimeUnit.MICROSECONDS.toMillis(latency.getPercentileMicros(95));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getP99Millis() {
+        return TimeUnit.MICROSECONDS.toMillis(latency.getPercentileMicros(99));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getMaxMillis() {
+        return TimeUnit.MICROSECONDS.toMillis(latency.getMaxMicros());
+    }
+
+    /**
+     * @return latency histogram of the operation
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link OperationMetrics}
+ *
+ * @author Alex Krupnov
+ */
+public interface OperationMetricsMBean {
+    /**
+     * @return operation name, such as getStatus or launch
+     */
+    String getName();
+
+    /**
+     * @return amount of http calls, retries included
+     */
+    long getCalls();
+
+    /**
+     * @return amount of failed http calls
+     */
+    long getErrors();
+
+    /**
+     * @return amount of calls rejected by open circuit breaker, never sent
+     */
+    long getRejectedCalls();
+
+    /**
+     * @return failed calls by http status, "network" for connection failures
+     */
+    Map<String, Long> getErrorsByStatus();
+
+    long getMeanMillis();
+
+    long getP50Millis();
+
+    long getP95Millis();
+
+    long getP99Millis();
+
+    long getMaxMillis();
+}
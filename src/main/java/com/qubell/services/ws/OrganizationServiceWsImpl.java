@@ -45,6 +45,15 @@ public class OrganizationServiceWsImpl extends WebServiceBase implements Organiz
         super(configuration);
     }
 
+    /**
+     * Inits service, sharing retry budget of a build
+     * @param configuration plugin configuration
+     * @param retryBudget retries left for the build
+     */
+    public OrganizationServiceWsImpl(Configuration configuration, RetryBudget retryBudget) {
+        super(configuration, retryBudget);
+    }
+
     /**
      * {@inheritDoc}
      */
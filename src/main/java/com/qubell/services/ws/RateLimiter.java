@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket limiter of API calls
+ * <p/>
+ * Bucket holds up to one second worth of permits and is refilled continuously. Callers queue on a fair lock,
+ * so they are served in arrival order: the head of the queue sleeps until next permit, the rest wait behind it.
+ *
+ * @author Alex Krupnov
+ */
+public class RateLimiter {
+    private final String name;
+    private final double permitsPerSecond;
+    private final double capacity;
+
+    private final ReentrantLock queue = new ReentrantLock(true);
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    /**
+     * @param name             limiter name, for monitoring
+     * @param permitsPerSecond sustained rate, zero or negative disables limiting
+     */
+    public RateLimiter(String name, double permitsPerSecond) {
+        this.name = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, permitsPerSecond);
+        this.tokens = capacity;
+    }
+
+    /**
+     * Waits for a permit
+     *
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        if (permitsPerSecond <= 0) {
+            return;
+        }
+
+        queueDepth.incrementAndGet();
+        try {
+            queue.lockInterruptibly();
+            try {
+                while (true) {
+                    refill();
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    TimeUnit.NANOSECONDS.sleep((long) ((1 - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1)));
+                }
+            } finally {
+                queue.unlock();
+            }
+        } finally {
+            queueDepth.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return amount of callers waiting for a permit
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return limiter name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return sustained rate, zero or negative when limiting is disabled
+     */
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import com.qubell.jenkinsci.plugins.qubell.Configuration;
+
+import javax.ws.rs.HttpMethod;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Controller-wide registry of {@link RateLimiter}s, shared by all builds
+ * <p/>
+ * Every account has two buckets: one for reads (GET: statuses, catalog) and one for mutating calls
+ * (launch, manifest update, commands), so a burst of launches does not starve status polling and vice versa.
+ *
+ * @author Alex Krupnov
+ */
+public final class RateLimiterRegistry {
+    private static final RateLimiterRegistry INSTANCE = new RateLimiterRegistry();
+
+    private final ConcurrentMap<String, RateLimiter> limiters = new ConcurrentHashMap<String, RateLimiter>();
+
+    private RateLimiterRegistry() {
+    }
+
+    /**
+     * @return the controller-wide registry
+     */
+    public static RateLimiterRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets limiter of the call kind for account of given configuration
+     *
+     * @param configuration plugin configuration
+     * @param method        http method of the call
+     * @return limiter
+     */
+    public RateLimiter get(Configuration configuration, String method) {
+        boolean read = HttpMethod.GET.equals(method);
+        String key = String.format("%s %s@%s", read ? "read" : "mutate", configuration.getLogin(), configuration.getUrl());
+
+        RateLimiter limiter = limiters.get(key);
+        if (limiter == null) {
+            RateLimiter created = new RateLimiter(key,
+                    read ? configuration.getReadRequestsPerSecond() : configuration.getMutatingRequestsPerSecond());
+            limiter = limiters.putIfAbsent(key, created);
+            if (limiter == null) {
+                limiter = created;
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * @return all limiters created so far
+     */
+    public List<RateLimiter> getLimiters() {
+        return new ArrayList<RateLimiter>(limiters.values());
+    }
+
+    /**
+     * @return amount of calls waiting for a permit in all limiters
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (RateLimiter limiter : limiters.values()) {
+            depth += limiter.getQueueDepth();
+        }
+        return depth;
+    }
+
+    /**
+     * Drops all limiters, used when global configuration changes
+     */
+    public void clear() {
+        limiters.clear();
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Request body sent as a stream, so content does not have to be loaded into memory before the call
+ * The stream is opened for every attempt, letting failed calls be retried
+ *
+ * @author Alex Krupnov
+ */
+public interface RequestBody {
+    /**
+     * Opens a new stream with body content, closed by the caller once sent
+     * @return body content stream
+     * @throws IOException when content could not be read
+     */
+    InputStream open() throws IOException;
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import com.qubell.jenkinsci.plugins.qubell.Configuration;
+
+import javax.ws.rs.WebApplicationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers, per account, whether API accepts gzip compressed request bodies
+ * A compressed call rejected with 400 or 415 is sent again uncompressed, when that succeeds
+ * the account is considered not to support compression and further bodies are sent as is
+ *
+ * @author Alex Krupnov
+ */
+public final class RequestCompression {
+    private static final RequestCompression INSTANCE = new RequestCompression();
+
+    private final ConcurrentMap<String, Boolean> unsupported = new ConcurrentHashMap<String, Boolean>();
+
+    private RequestCompression() {
+    }
+
+    /**
+     * @return the controller-wide probe results
+     */
+    public static RequestCompression getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true when compression is enabled in configuration and was not rejected by the account
+     */
+    boolean isEnabled(Configuration configuration) {
+        return configuration.isCompressPayloads() && !unsupported.containsKey(getKey(configuration));
+    }
+
+    void markUnsupported(Configuration configuration) {
+        unsupported.put(getKey(configuration), Boolean.TRUE);
+    }
+
+    /**
+     * @return true when the failure may be caused by server not accepting compressed body
+     */
+    static boolean isRejection(WebApplicationException e) {
+        int status = e.getResponse().getStatus();
+        return status == 400 || status == 415;
+    }
+
+    /**
+     * Forgets probe results, used when global configuration changes
+     */
+    public void clear() {
+        unsupported.clear();
+    }
+
+    private static String getKey(Configuration configuration) {
+        return String.format("%s@%s", configuration.getLogin(), configuration.getUrl());
+    }
+}
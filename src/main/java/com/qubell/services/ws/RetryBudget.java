@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the total amount of API call retries made on behalf of a single build,
+ * so a long outage fails the build instead of stretching every call to its retry limit
+ *
+ * @author Alex Krupnov
+ */
+public class RetryBudget {
+    private final int limit;
+    private final AtomicInteger used = new AtomicInteger();
+
+    /**
+     * @param limit maximum amount of retries
+     */
+    public RetryBudget(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Takes one retry from the budget
+     *
+     * @return true when retry is allowed, false when budget is exhausted
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = used.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (used.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return amount of retries made so far
+     */
+    public int getUsed() {
+        return used.get();
+    }
+
+    /**
+     * @return maximum amount of retries
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
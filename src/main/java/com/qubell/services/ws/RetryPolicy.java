@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import javax.net.ssl.SSLException;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.WebApplicationException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+
+/**
+ * Decides whether a failed API call is retried and how long to wait before the retry
+ * <p/>
+ * Only transient failures are retried: connection failures and resets, SSL handshake failures,
+ * 408, 502, 503 and 504 responses. Idempotent calls (GET, DELETE) are retried on any of those,
+ * POST and PUT only when connection could not be established, since the request never reached the server
+ * (PUT of a manifest creates a new application version, so repeating it is not harmless).
+ * Delays grow exponentially from {@link #BASE_DELAY_MILLIS} up to {@link #MAX_DELAY_MILLIS},
+ * each one picked randomly between zero and the current bound, so clients failed together do not retry together.
+ *
+ * @author Alex Krupnov
+ */
+public class RetryPolicy {
+    /**
+     * Upper bound of the first retry delay
+     */
+    public static final long BASE_DELAY_MILLIS = 250;
+    /**
+     * Upper bound of any retry delay
+     */
+    public static final long MAX_DELAY_MILLIS = 8000;
+
+    private final int maxAttempts;
+    private final Random random = new Random();
+
+    /**
+     * @param maxAttempts maximum amount of retries of a single call
+     */
+    public RetryPolicy(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Checks whether failed call should be retried
+     *
+     * @param method  http method of the call
+     * @param error   failure of the call
+     * @param attempt amount of retries made so far
+     * @return true when call should be retried
+     */
+    public boolean shouldRetry(String method, RuntimeException error, int attempt) {
+        return attempt < maxAttempts && isTransient(method, error);
+    }
+
+    /**
+     * Checks whether call failure is transient and the call may succeed when repeated, no matter how many retries are allowed
+     *
+     * @param method http method of the call
+     * @param error  failure of the call
+     * @return true for transient failures
+     */
+    public static boolean isTransient(String method, RuntimeException error) {
+        if (error instanceof WebApplicationException) {
+            return isIdempotent(method) && isTransientStatus(((WebApplicationException) error).getResponse().getStatus());
+        }
+
+        if (causedBy(error, ConnectException.class)) {
+            return true;
+        }
+        return isIdempotent(method) && (causedBy(error, SocketException.class)
+                || causedBy(error, SocketTimeoutException.class)
+                || causedBy(error, SSLException.class));
+    }
+
+    /**
+     * Picks delay before the retry, "full jitter" exponential backoff
+     *
+     * @param attempt amount of retries made so far
+     * @return delay in milliseconds
+     */
+    public long getDelay(int attempt) {
+        long bound = getBackoffBound(attempt);
+        synchronized (random) {
+            return (long) (random.nextDouble() * bound);
+        }
+    }
+
+    /**
+     * Upper bound of backoff delay after given amount of consecutive failures
+     *
+     * @param attempt amount of failures
+     * @return delay bound in milliseconds
+     */
+    public static long getBackoffBound(int attempt) {
+        return Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << Math.min(attempt, 16));
+    }
+
+    /**
+     * @param status http status code
+     * @return true for statuses which usually go away on their own
+     */
+    public static boolean isTransientStatus(int status) {
+        return status == 408 || status == 502 || status == 503 || status == 504;
+    }
+
+    private static boolean isIdempotent(String method) {
+        return HttpMethod.GET.equals(method) || HttpMethod.DELETE.equals(method);
+    }
+
+    private static boolean causedBy(Throwable error, Class<? extends Throwable> causeClass) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (causeClass.isInstance(cause)) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
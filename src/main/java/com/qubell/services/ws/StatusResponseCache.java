@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controller-wide cache of the latest instance status responses, used for conditional status calls
+ * Keeps validators sent by the server (ETag, Last-Modified) and fingerprint of the response body,
+ * so an unchanged status is neither deserialized nor mapped again
+ * Mapped status is kept along with the response it was made of and handed to every caller polling the instance,
+ * callers do not modify it
+ *
+ * @author Alex Krupnov
+ */
+final class StatusResponseCache {
+    /**
+     * Amount of instances kept, least recently polled ones are dropped first
+     */
+    static final int MAX_ENTRIES = 1000;
+
+    private static final StatusResponseCache INSTANCE = new StatusResponseCache();
+
+    private final Map<String, CachedResponse> entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private StatusResponseCache() {
+    }
+
+    static StatusResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(String key, CachedResponse entry) {
+        entries.put(key, entry);
+    }
+
+    /**
+     * Cached response with its validators and the domain status mapped from it
+     */
+    static final class CachedResponse {
+        private final String etag;
+        private final String lastModified;
+        private final byte[] fingerprint;
+        private final InstanceStatusResponse response;
+        private final com.qubell.services.InstanceStatus status;
+
+        CachedResponse(String etag, String lastModified, byte[] fingerprint, InstanceStatusResponse response, com.qubell.services.InstanceStatus status) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fingerprint = fingerprint;
+            this.response = response;
+            this.status = status;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+        byte[] getFingerprint() {
+            return fingerprint;
+        }
+
+        InstanceStatusResponse getResponse() {
+            return response;
+        }
+
+        com.qubell.services.InstanceStatus getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2013 Qubell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.qubell.services.ws;
+
+import com.qubell.jenkinsci.plugins.qubell.Configuration;
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.apache.cxf.interceptor.LoggingInInterceptor;
+import org.apache.cxf.interceptor.LoggingOutInterceptor;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.impl.RuntimeDelegateImpl;
+import org.apache.cxf.transport.common.gzip.GZIPInInterceptor;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.RuntimeDelegate;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Controller-wide pool of pre-configured Apache CXF clients.
+ * <p/>
+ * A template client is built once per (url, credentials, TLS mode) and keeps the provider list, HTTP conduit
+ * (with keep-alive and TLS parameters), the authorization header and gzip handling when payload compression is enabled. Every service call gets a lightweight
+ * copy of the template, sharing its configuration, so path and headers stay local to the call
+ * while connections and TLS sessions are reused.
+ *
+ * @author Alex Krupnov
+ */
+public final class WebClientPool {
+    private static final WebClientPool INSTANCE = new WebClientPool();
+
+    private final ConcurrentMap<ClientKey, WebClient> templates = new ConcurrentHashMap<ClientKey, WebClient>();
+
+    private WebClientPool() {
+    }
+
+    /**
+     * @return the controller-wide pool
+     */
+    public static WebClientPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a client for a single call, built from the pooled template for the given configuration
+     *
+     * @param configuration plugin configuration
+     * @return new per-call client, sharing connection settings with the template
+     */
+    public WebClient acquire(Configuration configuration) {
+        ClientKey key = new ClientKey(configuration);
+
+        WebClient template = templates.get(key);
+        if (template == null) {
+            WebClient created = createTemplate(configuration);
+            template = templates.putIfAbsent(key, created);
+            if (template == null) {
+                template = created;
+            }
+        }
+
+        return WebClient.fromClient(template, true);
+    }
+
+    /**
+     * Drops all templates, used when global configuration changes
+     */
+    public void clear() {
+        templates.clear();
+    }
+
+    private WebClient createTemplate(Configuration configuration) {
+        setRuntimeDelegate();
+
+        org.codehaus.jackson.jaxrs.JacksonJsonProvider jsonProvider = new org.codehaus.jackson.jaxrs.JacksonJsonProvider();
+        jsonProvider.addUntouchable(CompressedBody.class);
+
+        List<Object> providerList = new ArrayList<Object>();
+        providerList.add(new CompressedBodyWriter());
+        providerList.add(jsonProvider);
+
+        WebClient client = WebClient.create(getApiUrl(configuration), providerList);
+
+        HTTPConduit conduit = WebClient.getConfig(client).getHttpConduit();
+        HTTPClientPolicy policy = conduit.getClient();
+        if (policy == null) {
+            policy = new HTTPClientPolicy();
+        }
+        policy.setConnection(ConnectionType.KEEP_ALIVE);
+        conduit.setClient(policy);
+
+        if (configuration.isSkipCertificateChecks()) {
+            configurePassThroughSSLCheck(conduit);
+        }
+
+        client.header("Authorization", getAuthorizationHeader(configuration));
+        client.accept(MediaType.APPLICATION_JSON_TYPE);
+        client.header("Content-Type", MediaType.APPLICATION_JSON_TYPE);
+
+        if (configuration.isCompressPayloads()) {
+            // Responses are inflated before logging and json binding
+            client.header("Accept-Encoding", "gzip");
+            WebClient.getConfig(client).getInInterceptors().add(new GZIPInInterceptor());
+        }
+
+        if (configuration.isEnableMessageLogging()) {
+            WebClient.getConfig(client).getInInterceptors().add(new LoggingInInterceptor());
+            WebClient.getConfig(client).getOutInterceptors().add(new LoggingOutInterceptor());
+        }
+
+        return client;
+    }
+
+    private static String getApiUrl(Configuration configuration) {
+        String url = configuration.getUrl();
+        if (!url.endsWith("/")) {
+            url = url.concat("/");
+        }
+        return url.concat("api/1/");
+    }
+
+    private static String getAuthorizationHeader(Configuration configuration) {
+        return "Basic "
+                + org.apache.cxf.common.util.Base64Utility.encode(String.format("%s:%s",
+                configuration.getLogin(), configuration.getPassword()).getBytes());
+    }
+
+    private void configurePassThroughSSLCheck(HTTPConduit conduit) {
+        TrustManager tm = new X509TrustManager() {
+            public void checkClientTrusted(X509Certificate[] chain,
+                                           String authType)
+                    throws CertificateException {
+                //do nothing, you're the client
+            }
+
+            public X509Certificate[] getAcceptedIssuers() {
+                return null;
+            }
+
+            public void checkServerTrusted(X509Certificate[] chain,
+                                           String authType)
+                    throws CertificateException {
+            }
+        };
+        System.setProperty("jsse.enableSNIExtension", "false");
+
+        TLSClientParameters params = conduit.getTlsClientParameters();
+        if (params == null) {
+            params = new TLSClientParameters();
+        }
+        params.setTrustManagers(new TrustManager[]{tm});
+        params.setDisableCNCheck(true);
+
+        // Conduit caches SSL socket factory built from these parameters, so TLS sessions are reused across calls
+        conduit.setTlsClientParameters(params);
+    }
+
+    //Due to jenkins container issue, Apache CXF runtime delegate is not found and hence has to be set manually
+    private void setRuntimeDelegate() {
+        try {
+            RuntimeDelegate.getInstance();
+        } catch (Exception e) {
+            RuntimeDelegate.setInstance(new RuntimeDelegateImpl());
+        }
+    }
+
+    /**
+     * Identifies a client template: API url, credentials, TLS mode, logging and compression flags
+     */
+    private static final class ClientKey {
+        private final String url;
+        private final String authorization;
+        private final boolean skipCertificateChecks;
+        private final boolean enableMessageLogging;
+        private final boolean compressPayloads;
+
+        private ClientKey(Configuration configuration) {
+            this.url = getApiUrl(configuration);
+            this.authorization = getAuthorizationHeader(configuration);
+            this.skipCertificateChecks = configuration.isSkipCertificateChecks();
+            this.enableMessageLogging = configuration.isEnableMessageLogging();
+            this.compressPayloads = configuration.isCompressPayloads();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ClientKey that = (ClientKey) o;
+
+            return skipCertificateChecks == that.skipCertificateChecks
+                    && enableMessageLogging == that.enableMessageLogging
+                    && compressPayloads == that.compressPayloads
+                    && url.equals(that.url)
+                    && authorization.equals(that.authorization);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = url.hashCode();
+            result = 31 * result + authorization.hashCode();
+            result = 31 * result + (skipCertificateChecks ? 1 : 0);
+            result = 31 * result + (enableMessageLogging ? 1 : 0);
+            result = 31 * result + (compressPayloads ? 1 : 0);
+            return result;
+        }
+    }
+}
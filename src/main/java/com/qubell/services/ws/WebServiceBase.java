@@ -18,24 +18,19 @@ package com.qubell.services.ws;
 
 import com.qubell.jenkinsci.plugins.qubell.Configuration;
 import com.qubell.jenkinsci.plugins.qubell.JsonParser;
-import org.apache.cxf.configuration.jsse.TLSClientParameters;
-import org.apache.cxf.interceptor.LoggingInInterceptor;
-import org.apache.cxf.interceptor.LoggingOutInterceptor;
+import org.apache.commons.io.IOUtils;
 import org.apache.cxf.jaxrs.client.WebClient;
-import org.apache.cxf.jaxrs.impl.RuntimeDelegateImpl;
-import org.apache.cxf.transport.http.HTTPConduit;
 
-import javax.net.ssl.SSLException;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
 import javax.ws.rs.HttpMethod;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.ClientException;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import javax.ws.rs.ext.RuntimeDelegate;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Base Web Service for Qubell API integration
@@ -43,97 +38,45 @@ import java.util.*;
  * @author Alex Krupnov
  */
 public abstract class WebServiceBase {
+    private static final String API_ROOT = "api/1/";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
 
     /**
      * App configuration
      */
     protected final Configuration configuration;
 
-    public WebServiceBase(Configuration configuration) {
-        this.configuration = configuration;
-    }
-
     /**
-     * Returns an Apache CXF Web Client
-     *
-     * @return client new instance
+     * Decides which failed calls are retried
      */
-    protected WebClient getWebClient() {
-        setRuntimeDelegate();
-
-        List<Object> providerList = new ArrayList<Object>();
-        providerList.add(new org.codehaus.jackson.jaxrs.JacksonJsonProvider());
-
-        String url = configuration.getUrl();
-        if (!url.endsWith("/")) {
-            url = url.concat("/");
-        }
-
-        WebClient client = WebClient.create(url.concat("api/1/"), providerList);
-        if (configuration.isSkipCertificateChecks()) {
-            configurePassThroughSSLCheck(client);
-        }
-
-
-        // Replace 'user' and 'password' by the actual values
-        String authorizationHeader = "Basic "
-                + org.apache.cxf.common.util.Base64Utility.encode(String.format("%s:%s",
-                configuration.getLogin(), configuration.getPassword()).getBytes());
-
-        client.header("Authorization", authorizationHeader);
-        client.accept(MediaType.APPLICATION_JSON_TYPE);
-        client.header("Content-Type", MediaType.APPLICATION_JSON_TYPE);
+    protected final RetryPolicy retryPolicy;
 
-        if (configuration.isEnableMessageLogging()) {
-            WebClient.getConfig(client).getInInterceptors().add(new LoggingInInterceptor());
-            WebClient.getConfig(client).getOutInterceptors().add(new LoggingOutInterceptor());
-        }
+    /**
+     * Retries left for the build this service works for
+     */
+    protected final RetryBudget retryBudget;
 
-        return client;
+    public WebServiceBase(Configuration configuration) {
+        this(configuration, new RetryBudget(configuration.getBuildRetryBudget()));
     }
 
-    private void configurePassThroughSSLCheck(WebClient client) {
-        TrustManager tm = new X509TrustManager() {
-            public void checkClientTrusted(X509Certificate[] chain,
-                                           String authType)
-                    throws CertificateException {
-                //do nothing, you're the client
-            }
-
-            public X509Certificate[] getAcceptedIssuers() {
-                return null;
-            }
-
-            public void checkServerTrusted(X509Certificate[] chain,
-                                           String authType)
-                    throws CertificateException {
-            }
-        };
-        System.setProperty("jsse.enableSNIExtension", "false");
-        HTTPConduit conduit = WebClient.getConfig(client)
-                .getHttpConduit();
-
-        TLSClientParameters params = conduit.getTlsClientParameters();
-        if (params == null) {
-            params = new TLSClientParameters();
-        }
-        params.setTrustManagers(new TrustManager[]{tm});
-        params.setDisableCNCheck(true);
-
-        conduit.setTlsClientParameters(params);
+    public WebServiceBase(Configuration configuration, RetryBudget retryBudget) {
+        this.configuration = configuration;
+        this.retryPolicy = new RetryPolicy(configuration.getMaxRetryAttempts());
+        this.retryBudget = retryBudget;
     }
 
-    //Due to jenkins container issue, Apache CXF runtime delegate is not found and hence has to be set manually
-    private void setRuntimeDelegate() {
-        try {
-            RuntimeDelegate.getInstance();
-        } catch (Exception e) {
-            RuntimeDelegate.setInstance(new RuntimeDelegateImpl());
-        }
+    /**
+     * Returns an Apache CXF Web Client for a single call, see {@link WebClientPool}
+     *
+     * @return client new instance, sharing pooled connection settings
+     */
+    protected WebClient getWebClient() {
+        return WebClientPool.getInstance().acquire(configuration);
     }
 
     /**
-     * Invokes a specified method on http client, doing retry logic for SSL context
+     * Invokes a specified method on http client, retrying transient failures, see {@link RetryPolicy}
      * @param method method to invoke
      * @param client prepared client
      * @param responseClass response class
@@ -145,55 +88,261 @@ public abstract class WebServiceBase {
     }
 
     /**
-     * Invokes a specified method on http client, doing retry logic for SSL context
+     * Invokes a specified method on http client, retrying transient failures, see {@link RetryPolicy}
      * @param method method to invoke
      * @param client prepared client
-     * @param body optional request body
+     * @param body optional request body, {@link RequestBody} is streamed and reopened for every attempt.
+     *             Bodies above threshold are gzip compressed, see {@link RequestCompression}
      * @param responseClass response class
      * @param <T> type of response class
      * @return response object
      */
-    protected <T> T invoke(String method, WebClient client, Object body, Class<T> responseClass) {
-        int attempt = 0;
-        if (method.equals(HttpMethod.POST)) {
-            return client.post(body, responseClass);
+    protected <T> T invoke(final String method, final WebClient client, final Object body, final Class<T> responseClass) {
+        return withRetries(method, client, new WebCall<T>() {
+            public T perform() {
+                CompressedBody compressed = compress(body);
+                if (compressed == null) {
+                    return send(body);
+                }
+                try {
+                    return send(compressed);
+                } catch (WebApplicationException e) {
+                    if (!RequestCompression.isRejection(e)) {
+                        throw e;
+                    }
+                    // Probing whether it was compression the server rejected, by the same call uncompressed
+                    compressed.close();
+                    T result = send(body);
+                    RequestCompression.getInstance().markUnsupported(configuration);
+                    return result;
+                } finally {
+                    compressed.close();
+                }
+            }
+
+            private T send(Object entity) {
+                if (!(entity instanceof RequestBody)) {
+                    return sendEntity(entity);
+                }
+                InputStream stream = openBody((RequestBody) entity);
+                try {
+                    return sendEntity(stream);
+                } finally {
+                    IOUtils.closeQuietly(stream);
+                }
+            }
+
+            private T sendEntity(Object entity) {
+                if (method.equals(HttpMethod.POST)) {
+                    return client.post(entity, responseClass);
+                }
+                if (method.equals(HttpMethod.PUT)) {
+                    return client.put(entity, responseClass);
+                }
+                return client.get(responseClass);
+            }
+        });
+    }
+
+    /**
+     * Wraps request body for gzip compression, when it is enabled for the account and body is larger than threshold
+     * @return compressed body or null when body is sent as is
+     */
+    private CompressedBody compress(Object body) {
+        if (body == null || !RequestCompression.getInstance().isEnabled(configuration)) {
+            return null;
         }
-        if(method.equals(HttpMethod.PUT)){
-            return client.put(body, responseClass);
+
+        InputStream content;
+        if (body instanceof RequestBody) {
+            content = openBody((RequestBody) body);
+        } else if (body instanceof String) {
+            content = new ByteArrayInputStream(((String) body).getBytes(UTF_8));
+        } else {
+            String json = JsonParser.serialize(body);
+            if (json == null) {
+                return null;
+            }
+            content = new ByteArrayInputStream(json.getBytes(UTF_8));
         }
-        while (true) {
-            try {
-                if (method.equals(HttpMethod.GET)) {
-                    return client.get(responseClass);
+
+        try {
+            return CompressedBody.of(content, configuration.getCompressionThreshold());
+        } catch (IOException e) {
+            IOUtils.closeQuietly(content);
+            throw new ClientException("Unable to read request body", e);
+        }
+    }
+
+    private static InputStream openBody(RequestBody body) {
+        try {
+            return body.open();
+        } catch (IOException e) {
+            throw new ClientException("Unable to read request body", e);
+        }
+    }
+
+    protected  <T> Collection<? extends T> invokeAndGetCollection(final String method, final WebClient client, final Object body,
+                                                              final Class<T> memberClass) {
+        return withRetries(method, client, new WebCall<Collection<? extends T>>() {
+            public Collection<? extends T> perform() {
+                if (method.equals(HttpMethod.POST)) {
+                    return client.postAndGetCollection(body, memberClass);
                 }
-            } catch (ClientException ex) {
-                if (attempt > 5 || !causedBySsl(ex)) {
-                    throw ex;
+                return client.getCollection(memberClass);
+            }
+        });
+    }
+
+    /**
+     * Invokes a method without body binding, retrying transient failures, see {@link RetryPolicy}
+     * Body is read into memory, so caller can check caching headers and decide whether to bind it.
+     * Error statuses are thrown as {@link WebApplicationException} with text body, the same way typed calls fail.
+     * @param method method to invoke
+     * @param client prepared client
+     * @return response with body as byte array entity, empty for 304
+     */
+    protected Response invokeAndBuffer(final String method, final WebClient client) {
+        return withRetries(method, client, new WebCall<Response>() {
+            public Response perform() {
+                Response response = client.invoke(method, null);
+                byte[] body = readBody(response);
+                if (response.getStatus() >= 400) {
+                    throw new WebApplicationException(Response.fromResponse(response).entity(new String(body, UTF_8)).build());
                 }
-                attempt++;
+                return Response.fromResponse(response).entity(body).build();
             }
+        });
+    }
+
+    private static byte[] readBody(Response response) {
+        Object entity = response.getEntity();
+        if (!(entity instanceof InputStream)) {
+            return new byte[0];
+        }
+        InputStream stream = (InputStream) entity;
+        try {
+            return IOUtils.toByteArray(stream);
+        } catch (IOException e) {
+            throw new ClientException("Unable to read response body", e);
+        } finally {
+            IOUtils.closeQuietly(stream);
         }
     }
 
-    protected  <T> Collection<? extends T> invokeAndGetCollection(String method, WebClient client, Object body,
-                                                              Class<T> memberClass) {
+    /**
+     * Performs the call, retrying it with backoff while policy and build budget allow
+     * Calls to an endpoint with open circuit breaker fail fast with {@link CircuitOpenException}
+     * Every other attempt waits for a permit of controller-wide {@link RateLimiter}, when limits are configured
+     * Every attempt is recorded in {@link ApiMetrics}
+     * The last failure is rethrown as is, so callers keep mapping it to service exceptions
+     */
+    private <T> T withRetries(String method, WebClient client, WebCall<T> call) {
+        String[] path = getApiPath(client);
+        CircuitBreaker breaker = CircuitBreakerRegistry.getInstance().get(configuration, path[0]);
+        OperationMetrics metrics = ApiMetrics.getInstance().get(getOperation(method, path));
+        RateLimiter limiter = RateLimiterRegistry.getInstance().get(configuration, method);
         int attempt = 0;
         while (true) {
+            // Breaker goes first, so calls it rejects do not use up rate limiter permits
+            if (!breaker.tryAcquire()) {
+                metrics.onRejected();
+                throw new CircuitOpenException(breaker, breaker.getRetryAfterMillis());
+            }
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                // Build is being aborted, letting the call through, so abort is not delayed by the queue
+                Thread.currentThread().interrupt();
+            }
+
+            long startedAt = System.nanoTime();
             try {
-                if (method.equals(HttpMethod.GET)) {
-                    return client.getCollection(memberClass);
+                T result = call.perform();
+                long latency = System.nanoTime() - startedAt;
+                metrics.onSuccess(latency);
+                breaker.onSuccess(TimeUnit.NANOSECONDS.toMillis(latency));
+                return result;
+            } catch (RuntimeException e) {
+                long latency = System.nanoTime() - startedAt;
+                metrics.onFailure(latency, e);
+                if (isServerFailure(e)) {
+                    breaker.onFailure();
+                } else {
+                    breaker.onSuccess(TimeUnit.NANOSECONDS.toMillis(latency));
                 }
-                if (method.equals(HttpMethod.POST)) {
-                    return client.postAndGetCollection(body, memberClass);
+
+                if (!retryPolicy.shouldRetry(method, e, attempt) || !retryBudget.tryAcquire()) {
+                    throw e;
                 }
-            } catch (ClientException ex) {
-                if (attempt > 5 || !causedBySsl(ex)) {
-                    throw ex;
+                try {
+                    Thread.sleep(retryPolicy.getDelay(attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
                 }
                 attempt++;
             }
         }
+    }
+
+    /**
+     * Server-side and network failures count against the circuit breaker, other errors (401, 404, 409...)
+     * mean the API itself is healthy
+     */
+    private boolean isServerFailure(RuntimeException e) {
+        if (e instanceof WebApplicationException) {
+            int status = ((WebApplicationException) e).getResponse().getStatus();
+            return status >= 500 || status == 408;
+        }
+        return true;
+    }
 
+    /**
+     * Path segments of the call below API root, such as ["instances", "{id}", "{command}"]
+     * The first segment is the top level API resource, used as circuit breaker endpoint
+     */
+    private String[] getApiPath(WebClient client) {
+        String path = client.getCurrentURI().getPath();
+        int apiRoot = path.indexOf(API_ROOT);
+        if (apiRoot >= 0) {
+            path = path.substring(apiRoot + API_ROOT.length());
+        }
+        return path.split("/");
+    }
+
+    /**
+     * Operation name of the call for {@link ApiMetrics}, following service method names
+     */
+    static String getOperation(String method, String[] path) {
+        String resource = path[0];
+        String action = path.length > 2 ? path[2] : null;
+        if (resource.equals("organizations")) {
+            if (action == null) {
+                return "listOrganizations";
+            }
+            if (action.equals("applications")) {
+                return "listApplications";
+            }
+            if (action.equals("environments")) {
+                return "listEnvironments";
+            }
+            if (action.equals("instances")) {
+                return "listInstances";
+            }
+        }
+        if (resource.equals("applications")) {
+            if ("launch".equals(action)) {
+                return "launch";
+            }
+            if ("manifest".equals(action)) {
+                return "updateManifest";
+            }
+        }
+        if (resource.equals("instances")) {
+            return action == null && method.equals(HttpMethod.GET) ? "getStatus" : "runCommand";
+        }
+        return method + " " + resource;
     }
 
     protected String parseJsonErrorMessage(Response response, String defaultMessage) {
@@ -228,7 +377,10 @@ public abstract class WebServiceBase {
         return response.getEntity() != null;
     }
 
-    private boolean causedBySsl(Throwable ex) {
-        return ex instanceof SSLException || ex.getCause() != null && causedBySsl(ex.getCause());
+    /**
+     * A single http call
+     */
+    private interface WebCall<T> {
+        T perform();
     }
 }